@@ -0,0 +1,61 @@
+package DepartmentFinalScoreChart;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Department averages over an already loaded table (what the UI recomputes
+// when the view changes), and merging per-file snapshots.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class AggregateBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public long rows;
+
+    @Param({"4", "64"})
+    public int departments;
+
+    private StudentTable table;
+    private List<DatasetSnapshot> parts;
+
+    @Setup
+    public void load() throws IOException {
+        File file = DatasetGenerator.cached(rows, 0.0, departments);
+        DatasetSnapshot snapshot = StudentDataProcessor.loadSequential(file, StudentDataProcessor.LoadMonitor.NONE);
+        table = snapshot.getTable();
+        parts = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            parts.add(snapshot);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Double> calculateDepartmentAverages() {
+        return ScoreAccumulator.averages(table.departmentStats());
+    }
+
+    @Benchmark
+    public DatasetSnapshot mergeEightFiles() {
+        return StudentDataProcessor.merge("8 files", parts);
+    }
+}
@@ -0,0 +1,53 @@
+package DepartmentFinalScoreChart;
+
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Chart build from department averages. createChart needs the JavaFX toolkit
+// and a display, so this measures the headless ChartRenderer that batch export
+// uses; it scales with the department count the same way.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+public class ChartBenchmark {
+
+    @Param({"4", "64"})
+    public int departments;
+
+    @Param({"true", "false"})
+    public boolean vertical;
+
+    private Map<String, Double> averages;
+
+    @Setup
+    public void averages() {
+        SplittableRandom random = new SplittableRandom(DatasetGenerator.DEFAULT_SEED);
+        averages = new LinkedHashMap<>();
+        for (int i = 0; i < departments; i++) {
+            averages.put("Department " + (i + 1), 40 + random.nextDouble() * 60);
+        }
+    }
+
+    @Benchmark
+    public BufferedImage renderChart() {
+        return ChartRenderer.render(averages, vertical);
+    }
+}
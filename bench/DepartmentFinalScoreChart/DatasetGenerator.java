@@ -0,0 +1,156 @@
+package DepartmentFinalScoreChart;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+// Writes synthetic student CSVs with the 23-column header of
+// "Students_Grading_Dataset (1).CSV". The same arguments always produce the same
+// bytes, so benchmark runs on different machines read identical input.
+//
+//   quoteDensity  share of text fields written quoted; a quarter of the quoted
+//                 last names also contain a comma and an escaped quote, so every
+//                 branch of the tokenizer's quoted-field path is exercised
+//   departments   number of distinct Department values; the first four are the
+//                 real ones, the rest are "Department 5", "Department 6", ...
+//
+//   java -cp ... DepartmentFinalScoreChart.DatasetGenerator OUT ROWS [QUOTE_DENSITY] [DEPARTMENTS] [SEED]
+final class DatasetGenerator {
+
+    static final String HEADER = "Student_ID,First_Name,Last_Name,Email,Gender,Age,Department,Attendance (%),"
+            + "Midterm_Score,Final_Score,Assignments_Avg,Quizzes_Avg,Participation_Score,Projects_Score,"
+            + "Total_Score,Grade,Study_Hours_per_Week,Extracurricular_Activities,Internet_Access_at_Home,"
+            + "Parent_Education_Level,Family_Income_Level,Stress_Level (1-10),Sleep_Hours_per_Night";
+
+    static final long DEFAULT_SEED = 20240501L;
+
+    private static final String[] FIRST_NAMES = {"Omar", "Maria", "Ahmed", "John", "Liam", "Sara", "Emma", "Ali"};
+    private static final String[] LAST_NAMES = {"Williams", "Brown", "Jones", "Smith", "Davis", "Johnson", "Kim"};
+    private static final String[] KNOWN_DEPARTMENTS = {"CS", "Engineering", "Mathematics", "Business"};
+    private static final String[] GENDERS = {"Male", "Female"};
+    private static final String[] GRADES = {"A", "B", "C", "D", "F"};
+    private static final String[] YES_NO = {"Yes", "No"};
+    private static final String[] EDUCATION = {"None", "High School", "Bachelor's", "Master's", "PhD"};
+    private static final String[] INCOME = {"Low", "Medium", "High"};
+
+    private DatasetGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: DatasetGenerator OUT ROWS [QUOTE_DENSITY] [DEPARTMENTS] [SEED]");
+            System.exit(2);
+        }
+        File out = new File(args[0]);
+        long rows = Long.parseLong(args[1]);
+        double quoteDensity = args.length > 2 ? Double.parseDouble(args[2]) : 0.0;
+        int departments = args.length > 3 ? Integer.parseInt(args[3]) : KNOWN_DEPARTMENTS.length;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : DEFAULT_SEED;
+        write(out.toPath(), rows, quoteDensity, departments, seed);
+        System.out.println("Wrote " + rows + " rows to " + out + " (" + out.length() + " bytes)");
+    }
+
+    // Returns a generated file in java.io.tmpdir, writing it on first use so
+    // repeated benchmark runs share one copy per parameter combination.
+    static File cached(long rows, double quoteDensity, int departments) throws IOException {
+        String name = String.format(Locale.ROOT, "students-%d-q%.2f-d%d-s%d.csv",
+                rows, quoteDensity, departments, DEFAULT_SEED);
+        Path path = Path.of(System.getProperty("java.io.tmpdir"), name);
+        if (!Files.exists(path)) {
+            Path partial = Files.createTempFile(path.getParent(), name, ".part");
+            try {
+                write(partial, rows, quoteDensity, departments, DEFAULT_SEED);
+                Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+        }
+        return path.toFile();
+    }
+
+    static void write(Path out, long rows, double quoteDensity, int departments, long seed) throws IOException {
+        if (departments < 1) {
+            throw new IllegalArgumentException("departments must be at least 1");
+        }
+        String[] departmentNames = new String[departments];
+        for (int i = 0; i < departments; i++) {
+            departmentNames[i] = i < KNOWN_DEPARTMENTS.length ? KNOWN_DEPARTMENTS[i] : "Department " + (i + 1);
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(out), StandardCharsets.UTF_8), 1 << 16)) {
+            writer.write(HEADER);
+            writer.write('\n');
+            StringBuilder row = new StringBuilder(256);
+            for (long i = 0; i < rows; i++) {
+                row.setLength(0);
+                row.append('S').append(1000 + i).append(',');
+                text(row, pick(random, FIRST_NAMES), random, quoteDensity).append(',');
+                name(row, pick(random, LAST_NAMES), random, quoteDensity).append(',');
+                row.append("student").append(i).append("@university.com,");
+                text(row, pick(random, GENDERS), random, quoteDensity).append(',');
+                row.append(18 + random.nextInt(7)).append(',');
+                text(row, departmentNames[random.nextInt(departments)], random, quoteDensity).append(',');
+                decimal(row, random, 50, 100).append(',');
+                decimal(row, random, 40, 100).append(',');
+                decimal(row, random, 40, 100).append(',');
+                decimal(row, random, 40, 100).append(',');
+                decimal(row, random, 40, 100).append(',');
+                decimal(row, random, 0, 10).append(',');
+                decimal(row, random, 40, 100).append(',');
+                decimal(row, random, 40, 100).append(',');
+                row.append(pick(random, GRADES)).append(',');
+                row.append(5 + random.nextInt(25) / 2.0).append(',');
+                text(row, pick(random, YES_NO), random, quoteDensity).append(',');
+                text(row, pick(random, YES_NO), random, quoteDensity).append(',');
+                text(row, pick(random, EDUCATION), random, quoteDensity).append(',');
+                text(row, pick(random, INCOME), random, quoteDensity).append(',');
+                row.append(1 + random.nextInt(10)).append(',');
+                row.append(4 + random.nextInt(50) / 10.0);
+                row.append('\n');
+                writer.append(row);
+            }
+        }
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // Appends a decimal with two places in [min, max).
+    private static StringBuilder decimal(StringBuilder row, SplittableRandom random, int min, int max) {
+        int hundredths = min * 100 + random.nextInt((max - min) * 100);
+        row.append(hundredths / 100).append('.');
+        int fraction = hundredths % 100;
+        if (fraction < 10) {
+            row.append('0');
+        }
+        return row.append(fraction);
+    }
+
+    // Appends a text field, quoted with the given probability.
+    private static StringBuilder text(StringBuilder row, String value, SplittableRandom random, double quoteDensity) {
+        if (quoteDensity <= 0 || random.nextDouble() >= quoteDensity) {
+            return row.append(value);
+        }
+        return row.append('"').append(value).append('"');
+    }
+
+    // Like text(), but some quoted names carry a suffix with a comma and quotes.
+    private static StringBuilder name(StringBuilder row, String value, SplittableRandom random, double quoteDensity) {
+        if (quoteDensity <= 0 || random.nextDouble() >= quoteDensity) {
+            return row.append(value);
+        }
+        if (random.nextInt(4) == 0) {
+            return row.append('"').append(value).append(", \"\"Jr\"\"\"");
+        }
+        return row.append('"').append(value).append('"');
+    }
+}
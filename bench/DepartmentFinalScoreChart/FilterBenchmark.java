@@ -0,0 +1,92 @@
+package DepartmentFinalScoreChart;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Drill-down filters on the bitmap index of a loaded table, e.g. Age 18 - 20,
+// Attendance (%) < 60 and Internet_Access_at_Home = No, then the department
+// statistics of the selected rows.
+//
+// Setup first checks range filters against a scan of the rows, with the bound
+// set to a stored value as it would be typed (Float.toString), so rows equal to
+// an inclusive bound must match and rows equal to an exclusive one must not.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class FilterBenchmark {
+
+    @Param({"10000", "1000000"})
+    public long rows;
+
+    private StudentTable table;
+    private BitmapIndex index;
+    private List<RowFilter> filters;
+
+    @Setup
+    public void load() throws IOException {
+        File file = DatasetGenerator.cached(rows, 0.0, 4);
+        table = StudentDataProcessor.loadSequential(file, StudentDataProcessor.LoadMonitor.NONE).getTable();
+        index = table.index();
+        for (Column column : List.of(Column.ATTENDANCE, Column.MIDTERM_SCORE, Column.FINAL_SCORE)) {
+            checkBounds(column, table.numeric(column, 0));
+        }
+        filters = List.of(
+                RowFilter.between(Column.AGE, 18, true, 20, true),
+                RowFilter.between(Column.ATTENDANCE, Double.NEGATIVE_INFINITY, true, 60, false),
+                RowFilter.oneOf(Column.INTERNET_ACCESS_AT_HOME, List.of("No")));
+    }
+
+    @Benchmark
+    public RowBitmap select() {
+        return RowFilter.selectAll(filters, index);
+    }
+
+    @Benchmark
+    public int selectAndAggregate() {
+        return table.departmentStats(RowFilter.selectAll(filters, index)).size();
+    }
+
+    // Compares every kind of range on stored against a row scan.
+    private void checkBounds(Column column, double stored) {
+        double typed = column == Column.FINAL_SCORE ? stored : Double.parseDouble(Float.toString((float) stored));
+        double inf = Double.POSITIVE_INFINITY;
+        check(RowFilter.between(column, typed, true, inf, true), column, stored, 1, true);
+        check(RowFilter.between(column, typed, false, inf, true), column, stored, 1, false);
+        check(RowFilter.between(column, -inf, true, typed, true), column, stored, -1, true);
+        check(RowFilter.between(column, -inf, true, typed, false), column, stored, -1, false);
+        check(RowFilter.between(column, typed, true, typed, true), column, stored, 0, true);
+    }
+
+    // sign is 1 for values above stored, -1 for below and 0 for neither.
+    private void check(RowFilter filter, Column column, double stored, int sign, boolean inclusive) {
+        int expected = 0;
+        for (int row = 0; row < table.getRowCount(); row++) {
+            int comparison = Double.compare(table.numeric(column, row), stored);
+            if (!Double.isNaN(table.numeric(column, row))
+                    && ((sign != 0 && Integer.signum(comparison) == sign) || (inclusive && comparison == 0))) {
+                expected++;
+            }
+        }
+        int actual = filter.select(index).cardinality();
+        if (actual != expected) {
+            throw new IllegalStateException(filter + " selected " + actual + " rows, a scan " + expected);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package DepartmentFinalScoreChart;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// CSV file -> department statistics, once per load path. The input is generated
+// by DatasetGenerator on first use and reused from java.io.tmpdir afterwards.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class LoadBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public long rows;
+
+    @Param({"0.0", "0.2"})
+    public double quoteDensity;
+
+    @Param({"4", "64"})
+    public int departments;
+
+    private File file;
+
+    @Setup
+    public void generate() throws IOException {
+        file = DatasetGenerator.cached(rows, quoteDensity, departments);
+    }
+
+    // Tokenizer + parseStudent only: no table is built, rows go to a blackhole.
+    @Benchmark
+    public long parseStudent(Blackhole blackhole) throws IOException {
+        try (CsvRecordReader reader = new CsvRecordReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            int[] columns = StudentDataProcessor.findColumns(reader.readHeader());
+            reader.select(columns);
+            int requiredFields = Math.max(columns[0], columns[1]) + 1;
+            long[] count = new long[1];
+            LoadDiagnostics diagnostics = new LoadDiagnostics(file.getName(), LoadDiagnostics.UNLIMITED);
+            StudentDataProcessor.RowSink sink = (record, department, finalScore) -> {
+                blackhole.consume(department);
+                blackhole.consume(finalScore);
+                count[0]++;
+            };
+            while (reader.next()) {
+                StudentDataProcessor.parseStudent(reader, requiredFields, sink, diagnostics);
+            }
+            return count[0];
+        }
+    }
+
+    // Full load into a columnar table (the UI's default for small files).
+    @Benchmark
+    public DatasetSnapshot loadFull() throws IOException {
+        return StudentDataProcessor.loadSequential(file, StudentDataProcessor.LoadMonitor.NONE);
+    }
+
+    @Benchmark
+    public DatasetSnapshot loadStreaming() throws IOException {
+        return StudentDataProcessor.loadStreaming(file, StudentDataProcessor.LoadMonitor.NONE);
+    }
+
+    @Benchmark
+    public DatasetSnapshot loadParallel() throws IOException {
+        return ParallelCsvLoader.load(file, StudentDataProcessor.LoadMonitor.NONE);
+    }
+}
@@ -0,0 +1,121 @@
+package DepartmentFinalScoreChart;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Cold start, measured in fresh JVMs: each invocation launches one and waits for
+// its first result.
+//
+//   headless  BatchExport writing the averages CSV of a 10,000-row file, until exit
+//   ui        the app until its first laid-out frame (needs a display and
+//             -p jvmArgs="--module-path .../javafx-sdk/lib --add-modules javafx.controls,javafx.swing")
+//
+// archive is "none" or an AppCDS archive from cds-archive.sh; classpath (default:
+// this JVM's) and jvmArgs must match the ones the archive was trained with.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 20)
+@Fork(1)
+public class StartupBenchmark {
+
+    @Param({"headless"})
+    public String target;
+
+    @Param({"none"})
+    public String archive;
+
+    @Param({""})
+    public String classpath;
+
+    @Param({""})
+    public String jvmArgs;
+
+    private List<String> command;
+    private File output;
+
+    @Setup
+    public void setUp() throws IOException {
+        command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        if (!archive.equals("none")) {
+            if (!new File(archive).isFile()) {
+                throw new IOException("No archive " + archive + "; run cds-archive.sh first");
+            }
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        if (!jvmArgs.isBlank()) {
+            command.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
+        }
+        command.add("-cp");
+        command.add(classpath.isEmpty() ? System.getProperty("java.class.path") : classpath);
+        switch (target) {
+            case "headless":
+                output = Files.createTempFile("startup", ".csv").toFile();
+                File input = DatasetGenerator.cached(10_000, 0.0, 4);
+                command.addAll(List.of("DepartmentFinalScoreChart.BatchExport", "--no-cache",
+                        "--csv", output.getPath(), input.getPath()));
+                break;
+            case "ui":
+                command.add("-Ddepartmentscore.startupProbe=frame");
+                command.add("DepartmentFinalScoreChart.DepartmentScoreAnalyzer");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown target: " + target);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (output != null) {
+            output.delete();
+        }
+    }
+
+    @Benchmark
+    public int launch() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        boolean marked = false;
+        try (BufferedReader lines = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.equals(DepartmentScoreAnalyzer.FIRST_FRAME_MARKER)) {
+                    marked = true;
+                    break; // the frame is up; exiting is not part of the measurement
+                }
+            }
+        }
+        if (marked) {
+            process.destroy();
+            return 0;
+        }
+        int exit = process.waitFor();
+        if (exit != 0 || target.equals("ui")) {
+            throw new IllegalStateException(command + " exited with " + exit);
+        }
+        return exit;
+    }
+}
@@ -0,0 +1,49 @@
+#!/bin/sh
+# Builds AppCDS archives (JDK 19+) from training runs, so later launches map the
+# classes of the app, PDFBox and JavaFX already parsed and verified instead of
+# loading them from the jars:
+#   cds/batch.jsa     BatchExport writing every format for the sample CSVs
+#   cds/analyzer.jsa  the app up to its first frame with the app pane shown
+#                     (skipped without JAVAFX_LIB or a display)
+#
+#   CLASSES=bin LIBS="lib/*" JAVAFX_LIB=/path/to/javafx-sdk/lib ./cds-archive.sh
+#
+# CDS only archives classes from jars, so the compiled classes are packed into
+# cds/departmentscore.jar first. An archive only applies to the classpath (and
+# JDK) it was trained with, which is recorded with absolute paths; launch with
+# the printed command lines, otherwise the JVM ignores the archive and starts as
+# usual.
+set -e
+cd "$(dirname "$0")"
+root=$(pwd)
+
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+JAR="${JAVA_HOME:+$JAVA_HOME/bin/}jar"
+CLASSES="${CLASSES:-bin}"
+CP="$root/cds/departmentscore.jar:${LIBS:-$root/lib/*}"
+FX=""
+if [ -n "$JAVAFX_LIB" ]; then
+    FX="--module-path $JAVAFX_LIB --add-modules javafx.controls,javafx.swing"
+fi
+
+mkdir -p cds
+rm -f cds/departmentscore.jar cds/*.jsa
+"$JAR" --create --file cds/departmentscore.jar -C "$CLASSES" .
+
+out=$(mktemp -d)
+trap 'rm -rf "$out"' EXIT
+
+"$JAVA" -XX:ArchiveClassesAtExit=cds/batch.jsa $FX -cp "$CP" DepartmentFinalScoreChart.BatchExport \
+    --no-cache --csv "$out/averages.csv" --png "$out/chart.png" --pdf "$out/chart.pdf" \
+    --report "$out/report.pdf" "$root"/*.CSV > /dev/null
+
+if [ -n "$JAVAFX_LIB" ] && { [ -n "$DISPLAY" ] || [ "$(uname)" != Linux ]; }; then
+    "$JAVA" -XX:ArchiveClassesAtExit=cds/analyzer.jsa -Ddepartmentscore.startupProbe=app $FX -cp "$CP" \
+        DepartmentFinalScoreChart.DepartmentScoreAnalyzer > /dev/null
+fi
+
+echo "Launch with the archives:"
+echo "  java -XX:SharedArchiveFile=$root/cds/batch.jsa $FX -cp \"$CP\" DepartmentFinalScoreChart.BatchExport ..."
+if [ -f cds/analyzer.jsa ]; then
+    echo "  java -XX:SharedArchiveFile=$root/cds/analyzer.jsa $FX -cp \"$CP\" DepartmentFinalScoreChart.DepartmentScoreAnalyzer"
+fi
@@ -0,0 +1,78 @@
+package DepartmentFinalScoreChart;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Map;
+import javax.imageio.ImageIO;
+
+// PDFBox imports – ensure these jars (pdfbox, fontbox, commons-logging, etc.) are in your lib folder
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+// File writers behind the Export buttons and the batch exporter. Nothing here
+// touches JavaFX; callers decide how to report success or failure. Each write
+// is recorded as a PipelineMetrics export stage (rows are the categories written).
+final class AggregateExporter {
+
+    private AggregateExporter() {
+    }
+
+    // Writes the department averages as a two-column CSV file.
+    static void writeCsv(File file, Map<String, Double> departmentAverages) throws IOException {
+        writeCsv(file, "Department", "Average Final Score", departmentAverages);
+    }
+
+    // Writes any group -> value map with the given column headers.
+    static void writeCsv(File file, String categoryHeader, String valueHeader, Map<String, Double> values)
+            throws IOException {
+        PipelineMetrics.Span span = PipelineMetrics.begin(PipelineMetrics.Stage.EXPORT_CSV, file.getName());
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write(quote(categoryHeader) + "," + quote(valueHeader) + "\n");
+            for (Map.Entry<String, Double> entry : values.entrySet()) {
+                writer.write(String.format("%s,%.2f\n", quote(entry.getKey()), entry.getValue()));
+            }
+        }
+        span.end(file.length(), values.size(), 0);
+    }
+
+    // Quotes a field that contains a delimiter, quote or line break.
+    static String quote(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+
+    // Writes an image as a PNG file.
+    static void writePng(BufferedImage image, File file) throws IOException {
+        PipelineMetrics.Span span = PipelineMetrics.begin(PipelineMetrics.Stage.EXPORT_PNG, file.getName());
+        if (!ImageIO.write(image, "png", file)) {
+            throw new IOException("No PNG writer available");
+        }
+        span.end(file.length(), 0, 0);
+    }
+
+    // Writes an image taken at scale pixels per point as a single-page PDF of
+    // the unscaled size, so higher scales give a sharper page, not a bigger one.
+    static void writeImagePdf(BufferedImage image, File file, double scale) throws IOException {
+        float width = (float) (image.getWidth() / scale);
+        float height = (float) (image.getHeight() / scale);
+        PipelineMetrics.Span span = PipelineMetrics.begin(PipelineMetrics.Stage.EXPORT_PDF, file.getName());
+        try (PDDocument doc = new PDDocument()) {
+            PDPage page = new PDPage(new PDRectangle(width, height));
+            doc.addPage(page);
+            PDImageXObject pdImage = LosslessFactory.createFromImage(doc, image);
+            try (PDPageContentStream contentStream = new PDPageContentStream(doc, page)) {
+                contentStream.drawImage(pdImage, 0, 0, width, height);
+            }
+            doc.save(file);
+        }
+        span.end(file.length(), 0, 0);
+    }
+}
@@ -0,0 +1,21 @@
+package DepartmentFinalScoreChart;
+
+// Aggregate applied to the measure column of each group (see GroupBy).
+enum AggregateFunction {
+    AVERAGE("Average"),
+    SUM("Sum"),
+    COUNT("Count"), // rows in the group, whether or not the measure is present
+    MIN("Minimum"),
+    MAX("Maximum");
+
+    private final String label;
+
+    AggregateFunction(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,444 @@
+package DepartmentFinalScoreChart;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Local HTTP service for index.html: the page sends a CSV (or names a dataset
+// on the server) and draws the department aggregates it gets back as JSON, so
+// parsing runs once in the Java loaders instead of in every browser. Built on
+// the JDK's com.sun.net.httpserver with one virtual thread per request; it only
+// listens on the loopback interface.
+//
+// Responses are cached by content: an upload by the SHA-256 of its bytes, a
+// dataset by its SnapshotCache key (path, size, mtime and content hash). A
+// repeated request is answered from the cache (or with 304 when the browser
+// sends the ETag back), and concurrent requests for the same content wait for
+// a single parse.
+//
+//   java -cp ... DepartmentFinalScoreChart.AggregationServer [options]
+//     --port N          port to listen on (default 8080)
+//     --data DIR        directory of the datasets requests may name (default: working directory)
+//     --page FILE       page served at / (default index.html)
+//
+//   GET  /                            the page
+//   GET  /api/datasets                names of the *.csv, *.gz and *.zip files in --data
+//   GET  /api/aggregate?dataset=NAME  aggregates of a dataset
+//   POST /api/aggregate               aggregates of the CSV (or .gz/.zip) in the request body
+public final class AggregationServer {
+
+    // Cached responses; each is a few hundred bytes per department
+    static final int MAX_CACHED_RESPONSES = 256;
+
+    private final File dataDir;
+    private final File page;
+    private final Map<String, CompletableFuture<byte[]>> responses =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<byte[]>> eldest) {
+                    return size() > MAX_CACHED_RESPONSES;
+                }
+            };
+    // Canonical path -> key of the dataset when it was last hashed
+    private final Map<String, SnapshotCache.Key> datasetKeys = new HashMap<>();
+
+    AggregationServer(File dataDir, File page) {
+        this.dataDir = dataDir;
+        this.page = page;
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        int port = 8080;
+        File dataDir = new File(".");
+        File page = new File("index.html");
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--port":
+                        port = Integer.parseInt(value(args, ++i, "--port"));
+                        break;
+                    case "--data":
+                        dataDir = new File(value(args, ++i, "--data"));
+                        break;
+                    case "--page":
+                        page = new File(value(args, ++i, "--page"));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (!dataDir.isDirectory()) {
+                throw new IllegalArgumentException("Not a directory: " + dataDir);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: AggregationServer [--port N] [--data DIR] [--page FILE]");
+            System.exit(2);
+        }
+        HttpServer server = new AggregationServer(dataDir, page).start(port);
+        System.out.println("Serving " + page + " and the datasets in " + dataDir.getCanonicalPath()
+                + " at http://localhost:" + server.getAddress().getPort() + "/");
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return args[index];
+    }
+
+    // Starts serving on the loopback interface; port 0 picks a free port.
+    HttpServer start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> handle(exchange, this::servePage));
+        server.createContext("/api/datasets", exchange -> handle(exchange, this::serveDatasets));
+        server.createContext("/api/aggregate", exchange -> handle(exchange, this::serveAggregate));
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            executor.shutdownNow();
+        }, "aggregation-server-stop"));
+        return server;
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    // A failed request for the client to fix, answered with status and an error message.
+    private static final class RequestException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    // Runs handler, turning its failures into JSON error responses.
+    private static void handle(HttpExchange exchange, Handler handler) {
+        try (exchange) {
+            try {
+                handler.handle(exchange);
+            } catch (RequestException e) {
+                sendError(exchange, e.status, e.getMessage());
+            } catch (IOException | UncheckedIOException e) {
+                // The CSV could not be loaded: no header, an unreadable archive, too many bad rows
+                String message = e instanceof UncheckedIOException ? e.getCause().getMessage() : e.getMessage();
+                sendError(exchange, 422, message);
+            } catch (RuntimeException e) {
+                sendError(exchange, 500, e.toString());
+            }
+        } catch (IOException e) {
+            // the client went away
+        }
+    }
+
+    private void servePage(HttpExchange exchange) throws IOException {
+        requireMethod(exchange, "GET");
+        String path = exchange.getRequestURI().getPath();
+        if (!path.equals("/") && !path.equals("/" + page.getName())) {
+            throw new RequestException(404, "Not found: " + path);
+        }
+        if (!page.isFile()) {
+            throw new RequestException(404, "No page at " + page);
+        }
+        send(exchange, 200, "text/html; charset=utf-8", Files.readAllBytes(page.toPath()));
+    }
+
+    private void serveDatasets(HttpExchange exchange) throws IOException {
+        requireMethod(exchange, "GET");
+        String[] names = dataDir.list((dir, name) -> CompressedInput.isInputName(name));
+        List<String> sorted = names == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(names));
+        sorted.sort(null);
+        StringBuilder json = new StringBuilder("[");
+        for (String name : sorted) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            appendString(json, name);
+        }
+        json.append(']');
+        send(exchange, 200, "application/json", json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void serveAggregate(HttpExchange exchange) throws IOException {
+        switch (exchange.getRequestMethod()) {
+            case "GET":
+                String dataset = queryParameters(exchange).get("dataset");
+                if (dataset == null) {
+                    throw new RequestException(400, "Name a dataset (?dataset=NAME) or POST a CSV");
+                }
+                aggregateDataset(exchange, dataset);
+                break;
+            case "POST":
+                aggregateUpload(exchange);
+                break;
+            default:
+                exchange.getResponseHeaders().set("Allow", "GET, POST");
+                throw new RequestException(405, "Use GET or POST");
+        }
+    }
+
+    private void aggregateDataset(HttpExchange exchange, String name) throws IOException {
+        // Only plain names of files in the data directory, never a path out of it
+        if (name.isEmpty() || name.contains("/") || name.contains("\\") || name.startsWith(".")
+                || !CompressedInput.isInputName(name)) {
+            throw new RequestException(400, "Not a dataset name: " + name);
+        }
+        File file = new File(dataDir, name);
+        if (!file.isFile()) {
+            throw new RequestException(404, "No dataset " + name);
+        }
+        SnapshotCache.Key key = datasetKey(file);
+        String tag = String.format("%x-%x-%08x", key.size, key.modified, key.hash);
+        if (notModified(exchange, tag)) {
+            return;
+        }
+        byte[] json = cached("dataset:" + key.path + ":" + tag, () -> {
+            LoadMode mode = key.size >= ParallelCsvLoader.PARALLEL_THRESHOLD ? LoadMode.PARALLEL : LoadMode.STREAMING;
+            return toJson(StudentDataProcessor.load(file, mode, StudentDataProcessor.LoadMonitor.NONE));
+        });
+        sendAggregate(exchange, tag, json);
+    }
+
+    // The file's key, hashing it again only when its size or mtime changed.
+    private SnapshotCache.Key datasetKey(File file) throws IOException {
+        String path = file.getCanonicalPath();
+        synchronized (datasetKeys) {
+            SnapshotCache.Key key = datasetKeys.get(path);
+            if (key != null && key.isCurrent()) {
+                return key;
+            }
+        }
+        SnapshotCache.Key key = SnapshotCache.Key.of(file);
+        synchronized (datasetKeys) {
+            datasetKeys.put(path, key);
+        }
+        return key;
+    }
+
+    // Spools the body to a temporary file while hashing it, so a repeated upload
+    // is answered from the cache without being parsed.
+    private void aggregateUpload(HttpExchange exchange) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JDK has SHA-256
+        }
+        Path upload = Files.createTempFile("upload-", ".csv");
+        try {
+            try (InputStream in = new DigestInputStream(exchange.getRequestBody(), digest)) {
+                Files.copy(in, upload, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (Files.size(upload) == 0) {
+                throw new RequestException(400, "Empty upload");
+            }
+            String tag = HexFormat.of().formatHex(digest.digest());
+            if (notModified(exchange, tag)) {
+                return;
+            }
+            File file = upload.toFile();
+            byte[] json = cached("upload:" + tag, () -> {
+                LoadMode mode = file.length() >= ParallelCsvLoader.PARALLEL_THRESHOLD
+                        ? LoadMode.PARALLEL : LoadMode.STREAMING;
+                return toJson(StudentDataProcessor.loadUncached(file, mode, StudentDataProcessor.LoadMonitor.NONE));
+            });
+            sendAggregate(exchange, tag, json);
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    private interface Aggregation {
+        byte[] run() throws IOException;
+    }
+
+    // The cached response for key, computing it unless another request already
+    // is; failures are not cached.
+    private byte[] cached(String key, Aggregation aggregation) throws IOException {
+        CompletableFuture<byte[]> created = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing;
+        synchronized (responses) {
+            existing = responses.putIfAbsent(key, created);
+        }
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw new IOException(cause.getMessage(), cause);
+                }
+                throw e;
+            }
+        }
+        try {
+            byte[] json = aggregation.run();
+            created.complete(json);
+            return json;
+        } catch (IOException | RuntimeException e) {
+            synchronized (responses) {
+                responses.remove(key, created);
+            }
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Department aggregates in name order, e.g.
+    // {"rows":5000,"badRows":2,"problems":"2 rows with too few fields","departments":[
+    //   {"department":"CS","color":"#ADD8E6","count":1250,"average":71.52,"min":40.1,"max":99.9,
+    //    "median":71.8,"standardDeviation":17.2}, ...]}
+    static byte[] toJson(DatasetSnapshot snapshot) {
+        StringBuilder json = new StringBuilder(256);
+        LoadDiagnostics diagnostics = snapshot.getDiagnostics();
+        json.append("{\"rows\":").append(snapshot.getRowCount());
+        json.append(",\"badRows\":").append(diagnostics.getBadRows());
+        json.append(",\"problems\":");
+        appendString(json, diagnostics.summary());
+        json.append(",\"departments\":[");
+        boolean first = true;
+        for (Map.Entry<String, ScoreAccumulator> entry : new TreeMap<>(snapshot.getDepartmentStats()).entrySet()) {
+            ScoreAccumulator stats = entry.getValue();
+            json.append(first ? "{" : ",{");
+            first = false;
+            json.append("\"department\":");
+            appendString(json, entry.getKey());
+            json.append(",\"color\":");
+            appendString(json, DepartmentColors.of(entry.getKey()));
+            json.append(",\"count\":").append(stats.getCount());
+            appendNumber(json, "average", stats.getAverage());
+            appendNumber(json, "min", stats.getMin());
+            appendNumber(json, "max", stats.getMax());
+            appendNumber(json, "median", stats.getQuantile(0.5));
+            appendNumber(json, "standardDeviation", stats.getStandardDeviation());
+            json.append('}');
+        }
+        json.append("]}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendNumber(StringBuilder json, String name, double value) {
+        json.append(",\"").append(name).append("\":");
+        json.append(Double.isFinite(value) ? Double.toString(value) : "null");
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) throws RequestException {
+        if (!exchange.getRequestMethod().equals(method)) {
+            exchange.getResponseHeaders().set("Allow", method);
+            throw new RequestException(405, "Use " + method);
+        }
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int equals = pair.indexOf('=');
+                if (equals > 0) {
+                    parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                            URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    // Answers 304 when the client already has the response tagged tag.
+    private static boolean notModified(HttpExchange exchange, String tag) throws IOException {
+        String etag = "\"" + tag + "\"";
+        if (!etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            return false;
+        }
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.sendResponseHeaders(304, -1);
+        return true;
+    }
+
+    private static void sendAggregate(HttpExchange exchange, String tag, byte[] json) throws IOException {
+        exchange.getResponseHeaders().set("ETag", "\"" + tag + "\"");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache"); // revalidate with the ETag
+        send(exchange, 200, "application/json", json);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        appendString(json, message != null ? message : "Request failed");
+        json.append('}');
+        send(exchange, status, "application/json", json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package DepartmentFinalScoreChart;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Headless entry point: parses CSV files, aggregates them and writes the same
+// CSV/PNG/PDF exports as the UI without starting the JavaFX toolkit, so it can
+// run from cron on a machine without a display. PNG charts are drawn by
+// ChartRenderer and PDF charts as vector graphics by PdfChartRenderer; --report
+// writes the multi-page ReportWriter report over all inputs. Inputs may be gzip
+// or zip archives (see CompressedInput). Input directories are expanded to the
+// *.csv, *.gz and *.zip files they hold and files are loaded in parallel.
+//
+//   java -cp ... DepartmentFinalScoreChart.BatchExport [options] <file or dir>...
+//     --csv FILE        merged averages as CSV
+//     --png FILE        merged chart as PNG
+//     --pdf FILE        merged chart as PDF
+//     --report FILE     multi-page PDF report of every department and file
+//     --title TEXT      title of the report (default "Department Score Report")
+//     --out-dir DIR     also export every input on its own into DIR
+//     --formats LIST    formats written to --out-dir (default csv,png,pdf)
+//     --mode MODE       auto, full, streaming or parallel (default streaming)
+//     --horizontal      horizontal bars
+//     --threads N       files loaded at once (default: available processors)
+//     --no-cache        neither read nor write SnapshotCache entries
+//     --max-bad-rows N  fail a file with more than N bad rows (default: no limit)
+//
+// Exits with 0 on success, 1 when any input failed and 2 on bad arguments.
+public final class BatchExport {
+
+    private File csvFile;
+    private File pngFile;
+    private File pdfFile;
+    private File reportFile;
+    private String reportTitle = ReportWriter.DEFAULT_TITLE;
+    private File outDir;
+    private Set<String> formats = new LinkedHashSet<>(Arrays.asList("csv", "png", "pdf"));
+    private LoadMode mode = LoadMode.STREAMING;
+    private boolean isVertical = true;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private final List<File> inputs = new ArrayList<>();
+
+    private BatchExport() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    // Runs a batch export and returns the process exit code.
+    static int run(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        BatchExport batch = new BatchExport();
+        try {
+            batch.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            return 2;
+        }
+        return batch.export();
+    }
+
+    private void parseArguments(String[] args) {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--csv":
+                    csvFile = new File(value(args, ++i, arg));
+                    break;
+                case "--png":
+                    pngFile = new File(value(args, ++i, arg));
+                    break;
+                case "--pdf":
+                    pdfFile = new File(value(args, ++i, arg));
+                    break;
+                case "--report":
+                    reportFile = new File(value(args, ++i, arg));
+                    break;
+                case "--title":
+                    reportTitle = value(args, ++i, arg);
+                    break;
+                case "--out-dir":
+                    outDir = new File(value(args, ++i, arg));
+                    break;
+                case "--formats":
+                    formats = new LinkedHashSet<>();
+                    for (String format : value(args, ++i, arg).split(",")) {
+                        format = format.trim().toLowerCase(Locale.ROOT);
+                        if (!format.equals("csv") && !format.equals("png") && !format.equals("pdf")) {
+                            throw new IllegalArgumentException("Unknown format: " + format);
+                        }
+                        formats.add(format);
+                    }
+                    break;
+                case "--mode":
+                    String name = value(args, ++i, arg);
+                    try {
+                        mode = LoadMode.valueOf(name.toUpperCase(Locale.ROOT));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Unknown load mode: " + name);
+                    }
+                    break;
+                case "--horizontal":
+                    isVertical = false;
+                    break;
+                case "--no-cache":
+                    System.setProperty("departmentscore.cache", "false");
+                    break;
+                case "--max-bad-rows":
+                    String limit = value(args, ++i, arg);
+                    try {
+                        if (Long.parseLong(limit) < 0) {
+                            throw new IllegalArgumentException("--max-bad-rows must not be negative");
+                        }
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("--max-bad-rows needs a number");
+                    }
+                    System.setProperty("departmentscore.maxBadRows", limit);
+                    break;
+                case "--threads":
+                    try {
+                        threads = Integer.parseInt(value(args, ++i, arg));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("--threads needs a number");
+                    }
+                    if (threads < 1) {
+                        throw new IllegalArgumentException("--threads must be at least 1");
+                    }
+                    break;
+                default:
+                    if (arg.startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                    }
+                    paths.add(arg);
+            }
+        }
+        if (paths.isEmpty()) {
+            throw new IllegalArgumentException("No input files given.");
+        }
+        if (csvFile == null && pngFile == null && pdfFile == null && reportFile == null && outDir == null) {
+            throw new IllegalArgumentException("Nothing to export: give --csv, --png, --pdf, --report or --out-dir.");
+        }
+        for (String path : paths) {
+            File file = new File(path);
+            if (file.isDirectory()) {
+                File[] csvFiles = file.listFiles((dir, fileName) -> CompressedInput.isInputName(fileName));
+                if (csvFiles != null) {
+                    Arrays.sort(csvFiles);
+                    inputs.addAll(Arrays.asList(csvFiles));
+                }
+            } else {
+                inputs.add(file);
+            }
+        }
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return args[index];
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: BatchExport [--csv FILE] [--png FILE] [--pdf FILE] [--report FILE]"
+                + " [--title TEXT] [--out-dir DIR] [--formats csv,png,pdf] [--mode auto|full|streaming|parallel]"
+                + " [--horizontal] [--threads N] [--no-cache] [--max-bad-rows N] <file or directory>...");
+    }
+
+    private int export() {
+        if (inputs.isEmpty()) {
+            System.err.println("No CSV files found.");
+            return 1;
+        }
+        if (outDir != null && !outDir.isDirectory() && !outDir.mkdirs()) {
+            System.err.println("Cannot create output directory " + outDir);
+            return 1;
+        }
+
+        // Load (and export per file) in parallel, keeping input order for the merge
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, inputs.size()), r -> {
+            Thread thread = new Thread(r, "batch-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<DatasetSnapshot>> futures = new ArrayList<>();
+        for (File file : inputs) {
+            futures.add(executor.submit(() -> {
+                DatasetSnapshot part = StudentDataProcessor.load(file, mode, StudentDataProcessor.LoadMonitor.NONE);
+                if (outDir != null) {
+                    exportPerFile(file, part);
+                }
+                return part;
+            }));
+        }
+        List<DatasetSnapshot> parts = new ArrayList<>();
+        int failures = 0;
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    DatasetSnapshot part = futures.get(i).get();
+                    if (!part.getDiagnostics().isClean()) {
+                        System.err.println(inputs.get(i) + ": " + part.getDiagnostics().details());
+                    }
+                    parts.add(part);
+                } catch (ExecutionException e) {
+                    failures++;
+                    Throwable cause = e.getCause();
+                    System.err.println(inputs.get(i) + ": " + (cause.getMessage() != null ? cause.getMessage() : cause));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Interrupted.");
+            return 1;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (!parts.isEmpty() && (csvFile != null || pngFile != null || pdfFile != null || reportFile != null)) {
+            DatasetSnapshot merged = parts.size() == 1
+                ? parts.get(0)
+                : StudentDataProcessor.merge(parts.size() + " files", parts);
+            try {
+                write(merged, csvFile, pngFile, pdfFile);
+            } catch (IOException e) {
+                failures++;
+                System.err.println("Failed to export merged results: " + e.getMessage());
+            }
+            if (reportFile != null) {
+                try {
+                    ReportWriter.write(reportFile, reportTitle, merged, threads);
+                } catch (IOException e) {
+                    failures++;
+                    System.err.println("Failed to write report: " + e.getMessage());
+                }
+            }
+        }
+        System.out.println("Exported " + parts.size() + " of " + inputs.size() + " files"
+                + (failures > 0 ? ", " + failures + " failed." : "."));
+        return failures > 0 ? 1 : 0;
+    }
+
+    // Writes <name>_averages.csv/.png/.pdf for one input into the output directory.
+    // The suffix keeps the CSV from replacing an input that lives in the same directory.
+    private void exportPerFile(File input, DatasetSnapshot part) throws IOException {
+        String name = input.getName();
+        if (name.toLowerCase(Locale.ROOT).endsWith(".csv.gz")) {
+            name = name.substring(0, name.length() - ".gz".length());
+        }
+        int dot = name.lastIndexOf('.');
+        String base = (dot > 0 ? name.substring(0, dot) : name) + "_averages";
+        write(part,
+                formats.contains("csv") ? new File(outDir, base + ".csv") : null,
+                formats.contains("png") ? new File(outDir, base + ".png") : null,
+                formats.contains("pdf") ? new File(outDir, base + ".pdf") : null);
+    }
+
+    private void write(DatasetSnapshot snapshot, File csv, File png, File pdf) throws IOException {
+        if (csv != null) {
+            AggregateExporter.writeCsv(csv, snapshot.getDepartmentAverages());
+        }
+        if (png != null) {
+            BufferedImage image = ChartRenderer.render(snapshot.getDepartmentAverages(), isVertical);
+            AggregateExporter.writePng(image, png);
+        }
+        if (pdf != null) {
+            PdfChartRenderer.write(pdf, ChartRenderer.TITLE, ChartRenderer.CATEGORY_LABEL, ChartRenderer.VALUE_LABEL,
+                    snapshot.getDepartmentAverages(), isVertical);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package DepartmentFinalScoreChart;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Bitmap indexes over the columns of a StudentTable, built once after the rows
+// are loaded. Each categorical column gets one RowBitmap per value (and one for
+// missing values). Each numeric column is cut into BUCKETS equal-width ranges
+// between its minimum and maximum with one bitmap per range. Each bucket also
+// records the smallest and largest value it actually holds, so a range query
+// can OR the buckets that lie inside it, skip the ones outside it and check
+// row values only in the (at most two) buckets it cuts through. Filters are
+// then bitmap ANDs and ORs instead of scans over every row.
+final class BitmapIndex {
+
+    static final int BUCKETS = 32;
+
+    private final StudentTable table;
+    private final Map<Column, RowBitmap[]> categories = new EnumMap<>(Column.class); // [code + 1]
+    private final Map<Column, NumericBuckets> numbers = new EnumMap<>(Column.class);
+    private final RowBitmap allRows;
+
+    private static final class NumericBuckets {
+        final RowBitmap[] buckets = new RowBitmap[BUCKETS];
+        final double[] lows = new double[BUCKETS];
+        final double[] highs = new double[BUCKETS];
+
+        NumericBuckets() {
+            for (int b = 0; b < BUCKETS; b++) {
+                buckets[b] = new RowBitmap();
+                lows[b] = Double.POSITIVE_INFINITY;
+                highs[b] = Double.NEGATIVE_INFINITY;
+            }
+        }
+    }
+
+    private BitmapIndex(StudentTable table) {
+        this.table = table;
+        int rowCount = table.getRowCount();
+        allRows = new RowBitmap();
+        for (int row = 0; row < rowCount; row++) {
+            allRows.add(row);
+        }
+        for (Column column : Column.values()) {
+            if (!table.has(column)) {
+                continue;
+            }
+            if (column.isCategorical()) {
+                categories.put(column, categoryBitmaps(table.codes(column), table.dictionary(column).size(), rowCount));
+            } else {
+                numbers.put(column, numericBuckets(column, rowCount));
+            }
+        }
+    }
+
+    // Indexes every column of table.
+    static BitmapIndex build(StudentTable table) {
+        return new BitmapIndex(table);
+    }
+
+    RowBitmap allRows() {
+        return allRows;
+    }
+
+    // Rows whose value in a categorical column is value (null for missing).
+    RowBitmap equalTo(Column column, String value) {
+        RowBitmap[] bitmaps = categories.get(column);
+        if (bitmaps == null) {
+            return new RowBitmap();
+        }
+        if (value == null) {
+            return bitmaps[0];
+        }
+        int code = table.dictionary(column).codeOf(value);
+        return code < 0 ? new RowBitmap() : bitmaps[code + 1];
+    }
+
+    // Rows whose value in a numeric column lies between min and max, each end
+    // inclusive or exclusive; missing values never match. Bounds on float columns
+    // are rounded to float first, so a value typed as shown matches itself.
+    RowBitmap range(Column column, double min, boolean minInclusive, double max, boolean maxInclusive) {
+        NumericBuckets index = numbers.get(column);
+        RowBitmap result = new RowBitmap();
+        if (index == null || min > max) {
+            return result;
+        }
+        if (table.floats(column) != null) {
+            // Compare at the precision the values were stored with: 55.03f widens
+            // to 55.029998..., which would fail ">= 55.03"
+            min = (float) min;
+            max = (float) max;
+        }
+        int[] buffer = null;
+        for (int b = 0; b < BUCKETS; b++) {
+            RowBitmap bucket = index.buckets[b];
+            if (bucket.containerCount() == 0 || !above(index.highs[b], min, minInclusive)
+                    || !below(index.lows[b], max, maxInclusive)) {
+                continue;
+            }
+            if (above(index.lows[b], min, minInclusive) && below(index.highs[b], max, maxInclusive)) {
+                result = result.or(bucket);
+                continue;
+            }
+            // Partly covered: keep the rows whose value is in range
+            if (buffer == null) {
+                buffer = new int[1 << 16];
+            }
+            RowBitmap matches = new RowBitmap();
+            for (int c = 0; c < bucket.containerCount(); c++) {
+                int n = bucket.rows(c, buffer);
+                for (int i = 0; i < n; i++) {
+                    double value = table.numeric(column, buffer[i]);
+                    if (above(value, min, minInclusive) && below(value, max, maxInclusive)) {
+                        matches.add(buffer[i]);
+                    }
+                }
+            }
+            result = result.or(matches);
+        }
+        return result;
+    }
+
+    private static boolean above(double value, double min, boolean inclusive) {
+        return value > min || (inclusive && value == min);
+    }
+
+    private static boolean below(double value, double max, boolean inclusive) {
+        return value < max || (inclusive && value == max);
+    }
+
+    private static RowBitmap[] categoryBitmaps(int[] codes, int size, int rowCount) {
+        RowBitmap[] bitmaps = new RowBitmap[size + 1];
+        for (int i = 0; i < bitmaps.length; i++) {
+            bitmaps[i] = new RowBitmap();
+        }
+        for (int row = 0; row < rowCount; row++) {
+            bitmaps[codes[row] + 1].add(row);
+        }
+        return bitmaps;
+    }
+
+    private NumericBuckets numericBuckets(Column column, int rowCount) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int row = 0; row < rowCount; row++) {
+            double value = table.numeric(column, row);
+            if (value < min) {
+                min = value;
+            }
+            if (value > max) {
+                max = value;
+            }
+        }
+        NumericBuckets index = new NumericBuckets();
+        if (min > max) {
+            return index; // no values at all
+        }
+        double width = max > min ? (max - min) / BUCKETS : 1;
+        for (int row = 0; row < rowCount; row++) {
+            double value = table.numeric(column, row);
+            if (value == value) { // not NaN
+                int b = Math.min(BUCKETS - 1, (int) ((value - min) / width));
+                index.buckets[b].add(row);
+                if (value < index.lows[b]) {
+                    index.lows[b] = value;
+                }
+                if (value > index.highs[b]) {
+                    index.highs[b] = value;
+                }
+            }
+        }
+        return index;
+    }
+}
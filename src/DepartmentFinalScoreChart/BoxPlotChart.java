@@ -0,0 +1,159 @@
+package DepartmentFinalScoreChart;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.chart.Axis;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.Region;
+import javafx.scene.shape.Line;
+
+// Box plot of the final score distribution per department. Each data item has
+// the department as x value and the median as y value; its extra value is the
+// double[] of QUANTILES (p10, p25, median, p75, p90). The whiskers span p10 to
+// p90 and the box p25 to p75. Colors come from chart.css through the same
+// department style classes as the bars.
+final class BoxPlotChart extends XYChart<String, Number> {
+
+    static final double[] QUANTILES = {0.10, 0.25, 0.50, 0.75, 0.90};
+
+    private static final double MAX_BOX_WIDTH = 80;
+
+    BoxPlotChart(CategoryAxis xAxis, NumberAxis yAxis) {
+        super(xAxis, yAxis);
+        getStyleClass().add("box-plot-chart");
+        setLegendVisible(false);
+    }
+
+    @Override
+    protected void dataItemAdded(Series<String, Number> series, int itemIndex, Data<String, Number> item) {
+        getPlotChildren().add(createNode(item));
+    }
+
+    @Override
+    protected void dataItemRemoved(Data<String, Number> item, Series<String, Number> series) {
+        getPlotChildren().remove(item.getNode());
+        removeDataItemFromDisplay(series, item);
+    }
+
+    @Override
+    protected void dataItemChanged(Data<String, Number> item) {
+        // Positions and the tooltip are refreshed by layoutPlotChildren
+    }
+
+    @Override
+    protected void seriesAdded(Series<String, Number> series, int seriesIndex) {
+        for (Data<String, Number> item : series.getData()) {
+            getPlotChildren().add(createNode(item));
+        }
+    }
+
+    @Override
+    protected void seriesRemoved(Series<String, Number> series) {
+        for (Data<String, Number> item : series.getData()) {
+            getPlotChildren().remove(item.getNode());
+        }
+        removeSeriesFromDisplay(series);
+    }
+
+    // The value axis covers the whiskers, not just the medians.
+    @Override
+    protected void updateAxisRange() {
+        Axis<String> xAxis = getXAxis();
+        Axis<Number> yAxis = getYAxis();
+        List<String> categories = new ArrayList<>();
+        List<Number> values = new ArrayList<>();
+        for (Series<String, Number> series : getData()) {
+            for (Data<String, Number> item : series.getData()) {
+                categories.add(item.getXValue());
+                for (double value : quantiles(item)) {
+                    values.add(value);
+                }
+            }
+        }
+        if (xAxis.isAutoRanging()) {
+            xAxis.invalidateRange(categories);
+        }
+        if (yAxis.isAutoRanging()) {
+            yAxis.invalidateRange(values);
+        }
+    }
+
+    @Override
+    protected void layoutPlotChildren() {
+        Axis<String> xAxis = getXAxis();
+        Axis<Number> yAxis = getYAxis();
+        double spacing = xAxis instanceof CategoryAxis ? ((CategoryAxis) xAxis).getCategorySpacing() : MAX_BOX_WIDTH;
+        double half = Math.min(MAX_BOX_WIDTH, spacing * 0.5) / 2;
+        for (Series<String, Number> series : getData()) {
+            for (Data<String, Number> item : series.getData()) {
+                if (!(item.getNode() instanceof Group)) {
+                    continue;
+                }
+                double[] q = quantiles(item);
+                double x = xAxis.getDisplayPosition(item.getXValue());
+                double p10 = yAxis.getDisplayPosition(q[0]);
+                double p25 = yAxis.getDisplayPosition(q[1]);
+                double median = yAxis.getDisplayPosition(q[2]);
+                double p75 = yAxis.getDisplayPosition(q[3]);
+                double p90 = yAxis.getDisplayPosition(q[4]);
+
+                List<Node> parts = ((Group) item.getNode()).getChildren();
+                setLine((Line) parts.get(0), x, p10, x, p90);
+                setLine((Line) parts.get(1), x - half / 2, p10, x + half / 2, p10);
+                setLine((Line) parts.get(2), x - half / 2, p90, x + half / 2, p90);
+                Region box = (Region) parts.get(3);
+                box.resizeRelocate(x - half, Math.min(p25, p75), half * 2, Math.abs(p25 - p75));
+                setLine((Line) parts.get(4), x - half, median, x + half, median);
+
+                Tooltip tooltip = (Tooltip) item.getNode().getProperties().get(Tooltip.class);
+                tooltip.setText(String.format("%s%np10: %.2f%np25: %.2f%nmedian: %.2f%np75: %.2f%np90: %.2f",
+                        item.getXValue(), q[0], q[1], q[2], q[3], q[4]));
+            }
+        }
+    }
+
+    // Whisker, its two caps, the box and the median line, in that order.
+    private static Node createNode(Data<String, Number> item) {
+        Node node = item.getNode();
+        if (node == null) {
+            Line whisker = new Line();
+            whisker.getStyleClass().add("whisker");
+            Line lowCap = new Line();
+            lowCap.getStyleClass().add("whisker");
+            Line highCap = new Line();
+            highCap.getStyleClass().add("whisker");
+            Region box = new Region();
+            box.getStyleClass().add("box");
+            Line median = new Line();
+            median.getStyleClass().add("median");
+            node = new Group(whisker, lowCap, highCap, box, median);
+            node.getStyleClass().addAll("box-plot", DepartmentColors.styleClass(item.getXValue()));
+            Tooltip tooltip = new Tooltip();
+            Tooltip.install(node, tooltip);
+            node.getProperties().put(Tooltip.class, tooltip);
+            item.setNode(node);
+        }
+        return node;
+    }
+
+    private static void setLine(Line line, double startX, double startY, double endX, double endY) {
+        line.setStartX(startX);
+        line.setStartY(startY);
+        line.setEndX(endX);
+        line.setEndY(endY);
+    }
+
+    private static double[] quantiles(Data<String, Number> item) {
+        Object extra = item.getExtraValue();
+        if (extra instanceof double[]) {
+            return (double[]) extra;
+        }
+        double median = item.getYValue().doubleValue();
+        return new double[] {median, median, median, median, median};
+    }
+}
@@ -0,0 +1,334 @@
+package DepartmentFinalScoreChart;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Byte-level counterpart of CsvRecordReader for ASCII-compatible encodings.
+// Scans records straight out of a ByteBuffer (typically memory-mapped), finds
+// delimiters on raw bytes and only decodes the selected columns.
+class ByteCsvScanner implements CsvRecord {
+
+    // Tokenizer states
+    static final int FIELD_START = 0;
+    static final int UNQUOTED = 1;
+    static final int QUOTED = 2;
+    static final int QUOTE_IN_QUOTED = 3;
+    static final int STATES = 4;
+
+    private ByteBuffer buffer;
+    private int position;
+    private int limit;
+
+    // Column index -> capture slot, or -1 when the column is skipped
+    private int[] slotOfColumn = new int[0];
+    private byte[][] slotBytes = new byte[0][];
+    private int[] slotLength = new int[0];
+
+    private int fieldCount;
+    private long lineNumber = 1;   // line the next record starts on
+    private long recordLine;       // line the current record started on
+    private final BytePool pool;
+
+    ByteCsvScanner(Charset charset) {
+        this.pool = new BytePool(charset);
+    }
+
+    ByteCsvScanner() {
+        this(StandardCharsets.UTF_8);
+    }
+
+    // Points the scanner at buffer[position, limit).
+    void reset(ByteBuffer buffer, int position, int limit) {
+        this.buffer = buffer;
+        this.position = position;
+        this.limit = limit;
+    }
+
+    // Tokenizer state after byte b, as next() moves through a record: a quote
+    // only opens a field at its start, and a line break outside quotes ends the
+    // record like a delimiter ends a field. Lets ParallelCsvLoader find record
+    // boundaries without parsing.
+    static int advance(int state, byte b) {
+        if (state == QUOTED) {
+            return b == '"' ? QUOTE_IN_QUOTED : QUOTED;
+        }
+        if (b == '"') {
+            return state == FIELD_START || state == QUOTE_IN_QUOTED ? QUOTED : UNQUOTED;
+        }
+        return b == ',' || b == '\n' || b == '\r' ? FIELD_START : UNQUOTED;
+    }
+
+    // Sets the line number of the record at the current position.
+    void setLineNumber(long lineNumber) {
+        this.lineNumber = lineNumber;
+    }
+
+    // Offset of the first byte not yet consumed.
+    int position() {
+        return position;
+    }
+
+    // Reads one record with every column kept, for the header scan.
+    String[] readHeader() {
+        int[] savedSlots = slotOfColumn;
+        byte[][] savedBytes = slotBytes;
+        int[] savedLengths = slotLength;
+        int width = 0;
+        for (int i = position; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == ',') {
+                width++;
+            } else if (b == '\n' || b == '\r') {
+                break;
+            }
+        }
+        int[] all = new int[width + 1];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+        }
+        select(all);
+        List<String> headers = new ArrayList<>();
+        if (next(true)) {
+            for (int i = 0; i < fieldCount && i < all.length; i++) {
+                headers.add(text(i));
+            }
+        }
+        slotOfColumn = savedSlots;
+        slotBytes = savedBytes;
+        slotLength = savedLengths;
+        return headers.toArray(new String[0]);
+    }
+
+    // Chooses which columns are copied out of each record; slot i holds columns[i].
+    void select(int... columns) {
+        int width = 0;
+        for (int column : columns) {
+            width = Math.max(width, column + 1);
+        }
+        slotOfColumn = new int[width];
+        Arrays.fill(slotOfColumn, -1);
+        slotBytes = new byte[columns.length][32];
+        slotLength = new int[columns.length];
+        for (int slot = 0; slot < columns.length; slot++) {
+            slotOfColumn[columns[slot]] = slot;
+        }
+    }
+
+    // Advances to the next non-blank record. When the buffer ends mid-record the
+    // record is only returned if endOfInput is set; otherwise the position is left
+    // at its first byte so the caller can refill and retry.
+    boolean next(boolean endOfInput) {
+        final ByteBuffer buf = buffer;
+        final int end = limit;
+        final int[] slots = slotOfColumn;
+        final int[] lengths = slotLength;
+        Arrays.fill(lengths, 0);
+        int state = FIELD_START;
+        int field = 0;
+        int slot = slots.length > 0 ? slots[0] : -1;
+        byte[] text = slot >= 0 ? slotBytes[slot] : null;
+        int length = 0;
+        boolean empty = true; // nothing but line breaks seen so far
+        int recordStart = position;
+        long startLine = lineNumber;
+        long line = lineNumber;
+        int i = position;
+
+        while (true) {
+            if (i >= end) {
+                if (empty) {
+                    position = i;
+                    lineNumber = line;
+                    return false;
+                }
+                if (!endOfInput) {
+                    position = recordStart;
+                    lineNumber = startLine;
+                    return false;
+                }
+                break; // last record has no trailing line break
+            }
+            byte b = buf.get(i++);
+            if (state == QUOTED) {
+                if (b == '"') {
+                    state = QUOTE_IN_QUOTED;
+                    continue;
+                }
+                if (b == '\n') {
+                    line++;
+                }
+            } else if (state == QUOTE_IN_QUOTED && b == '"') {
+                state = QUOTED; // escaped quote, kept below
+            } else if (b == ',') {
+                if (slot >= 0) {
+                    lengths[slot] = length;
+                }
+                field++;
+                slot = field < slots.length ? slots[field] : -1;
+                text = slot >= 0 ? slotBytes[slot] : null;
+                length = 0;
+                state = FIELD_START;
+                empty = false;
+                continue;
+            } else if (b == '\n' || b == '\r') {
+                if (b == '\r') {
+                    if (i >= end && !endOfInput) {
+                        // Cannot tell yet whether a '\n' follows
+                        position = recordStart;
+                        lineNumber = startLine;
+                        return false;
+                    }
+                    if (i < end && buf.get(i) == '\n') {
+                        i++;
+                    }
+                }
+                line++;
+                if (empty) {
+                    recordStart = i; // blank line
+                    startLine = line;
+                    continue;
+                }
+                break;
+            } else if (state == FIELD_START && b == '"') {
+                state = QUOTED;
+                empty = false;
+                continue;
+            } else {
+                state = UNQUOTED; // also covers stray text after a closing quote
+            }
+            empty = false;
+            if (text != null) {
+                if (length == text.length) {
+                    text = slotBytes[slot] = Arrays.copyOf(text, length * 2);
+                }
+                text[length++] = b;
+            }
+        }
+        if (slot >= 0) {
+            lengths[slot] = length;
+        }
+        position = i;
+        lineNumber = line;
+        recordLine = startLine;
+        fieldCount = field + 1;
+        return true;
+    }
+
+    // Number of fields in the current record.
+    @Override
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    // Line on which the current record starts.
+    @Override
+    public long lineNumber() {
+        return recordLine;
+    }
+
+    // True when the captured field is empty or whitespace only.
+    @Override
+    public boolean isBlank(int slot) {
+        byte[] text = slotBytes[slot];
+        for (int i = 0, n = slotLength[slot]; i < n; i++) {
+            if ((text[i] & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Returns the trimmed field, decoding each distinct byte sequence only once.
+    @Override
+    public String text(int slot) {
+        byte[] text = slotBytes[slot];
+        int start = 0;
+        int end = slotLength[slot];
+        while (start < end && (text[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (text[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        return pool.get(text, start, end);
+    }
+
+    // Raw field text, only used for error messages.
+    @Override
+    public String rawText(int slot) {
+        return new String(slotBytes[slot], 0, slotLength[slot], pool.charset);
+    }
+
+    // Parses the field as a decimal number straight from the captured ASCII digits.
+    @Override
+    public double number(int slot) {
+        return DecimalParser.parse(slotBytes[slot], 0, slotLength[slot]);
+    }
+
+    // Byte-keyed dictionary so repeated categorical values decode to one shared String.
+    private static final class BytePool {
+        private static final int MAX_ENTRIES = 4096;
+
+        private final Charset charset;
+        private byte[][] keys = new byte[64][];
+        private String[] values = new String[64];
+        private int[] hashes = new int[64];
+        private int size;
+
+        BytePool(Charset charset) {
+            this.charset = charset;
+        }
+
+        String get(byte[] text, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + text[i];
+            }
+            int mask = keys.length - 1;
+            int index = (hash ^ (hash >>> 16)) & mask;
+            byte[] key;
+            while ((key = keys[index]) != null) {
+                if (hashes[index] == hash && Arrays.equals(key, 0, key.length, text, start, end)) {
+                    return values[index];
+                }
+                index = (index + 1) & mask;
+            }
+            String value = new String(text, start, end - start, charset);
+            if (size < MAX_ENTRIES) {
+                keys[index] = Arrays.copyOfRange(text, start, end);
+                values[index] = value;
+                hashes[index] = hash;
+                if (++size * 2 > keys.length) {
+                    rehash();
+                }
+            }
+            return value;
+        }
+
+        private void rehash() {
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            int[] oldHashes = hashes;
+            keys = new byte[oldKeys.length * 2][];
+            values = new String[keys.length];
+            hashes = new int[keys.length];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int hash = oldHashes[i];
+                    int index = (hash ^ (hash >>> 16)) & mask;
+                    while (keys[index] != null) {
+                        index = (index + 1) & mask;
+                    }
+                    keys[index] = oldKeys[i];
+                    values[index] = oldValues[i];
+                    hashes[index] = hash;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package DepartmentFinalScoreChart;
+
+import java.util.HashMap;
+import java.util.Map;
+import javafx.geometry.Orientation;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+// Bar chart for many categories, painted on a Canvas the size of the visible
+// area instead of one scene-graph node per bar. Only bars inside the viewport
+// are drawn; the scroll bar (or the mouse wheel) moves along the category axis
+// and Ctrl + wheel zooms the bar size. Bar colors are looked up once per data
+// change into a palette array, so painting does no color parsing.
+final class CanvasBarChart extends Region {
+
+    private static final double MIN_BAR = 3;
+    private static final double MAX_BAR = 120;
+    private static final double TITLE_HEIGHT = 40;
+    private static final double AXIS_LABEL_SIZE = 30;
+    private static final double SCROLL_BAR_SIZE = 15;
+    private static final Font TITLE_FONT = Font.font("Comic Neue", 20);
+    private static final Font AXIS_FONT = Font.font("Comic Neue", 16);
+    private static final Font TICK_FONT = Font.font("Comic Neue", 12);
+    private static final Font VALUE_FONT = Font.font("Comic Neue", FontWeight.BOLD, 12);
+
+    // One Color per department color code, shared by every chart
+    private static final Map<String, Color> PALETTE = new HashMap<>();
+
+    static {
+        for (String code : new String[] {DepartmentColors.CS_COLOR, DepartmentColors.MATHEMATICS_COLOR,
+                DepartmentColors.ENGINEERING_COLOR, DepartmentColors.BUSINESS_COLOR,
+                DepartmentColors.DEFAULT_COLOR}) {
+            PALETTE.put(code, Color.web(code));
+        }
+    }
+
+    private final boolean isVertical;
+    private final Canvas canvas = new Canvas();
+    private final ScrollBar scrollBar = new ScrollBar();
+    private final Tooltip tooltip = new Tooltip();
+
+    private String title = "";
+    private String categoryLabel = "";
+    private String valueLabel = "";
+    private String[] labels = new String[0];
+    private double[] values = new double[0];
+    private Color[] fills = new Color[0];
+    private double upper = 1;   // value axis maximum
+    private double step = 0.2;  // value axis tick step
+    private double barSize = 24;
+
+    // Plot area inside the canvas, set by paint()
+    private double plotX;
+    private double plotY;
+    private double plotWidth;
+    private double plotHeight;
+
+    CanvasBarChart(boolean isVertical) {
+        this.isVertical = isVertical;
+        scrollBar.setOrientation(isVertical ? Orientation.HORIZONTAL : Orientation.VERTICAL);
+        scrollBar.valueProperty().addListener((obs, old, value) -> paint());
+        getChildren().addAll(canvas, scrollBar);
+        setMinSize(200, 200);
+        setPrefSize(900, 600);
+        canvas.addEventHandler(ScrollEvent.SCROLL, this::scrolled);
+        canvas.addEventHandler(MouseEvent.MOUSE_MOVED, this::hovered);
+        Tooltip.install(canvas, tooltip);
+    }
+
+    void setLabels(String title, String categoryLabel, String valueLabel) {
+        this.title = title;
+        this.categoryLabel = categoryLabel;
+        this.valueLabel = valueLabel;
+        paint();
+    }
+
+    // Replaces the bars; the map's order is the order along the category axis.
+    void setData(Map<String, Double> data) {
+        int count = data.size();
+        labels = new String[count];
+        values = new double[count];
+        fills = new Color[count];
+        double max = 0;
+        int i = 0;
+        for (Map.Entry<String, Double> entry : data.entrySet()) {
+            labels[i] = entry.getKey();
+            values[i] = entry.getValue();
+            fills[i] = PALETTE.get(DepartmentColors.of(entry.getKey()));
+            max = Math.max(max, values[i]);
+            i++;
+        }
+        double[] scale = ChartRenderer.niceScale(max);
+        upper = scale[0];
+        step = scale[1];
+        requestLayout();
+        paint();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = getWidth();
+        double height = getHeight();
+        if (isVertical) {
+            canvas.setWidth(width);
+            canvas.setHeight(Math.max(0, height - SCROLL_BAR_SIZE));
+            scrollBar.resizeRelocate(0, height - SCROLL_BAR_SIZE, width, SCROLL_BAR_SIZE);
+        } else {
+            canvas.setWidth(Math.max(0, width - SCROLL_BAR_SIZE));
+            canvas.setHeight(height);
+            scrollBar.resizeRelocate(width - SCROLL_BAR_SIZE, 0, SCROLL_BAR_SIZE, height);
+        }
+        paint();
+    }
+
+    private double slot() {
+        return barSize * 1.5; // bar plus gap
+    }
+
+    // Draws the axes and the bars that fall inside the plot area.
+    private void paint() {
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        g.clearRect(0, 0, width, height);
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        double categoryMargin = isVertical ? 110 : 160; // room for category names
+        double valueMargin = 50;                        // room for tick labels
+        if (isVertical) {
+            plotX = AXIS_LABEL_SIZE + valueMargin;
+            plotY = TITLE_HEIGHT;
+            plotWidth = width - plotX - 20;
+            plotHeight = height - plotY - categoryMargin - AXIS_LABEL_SIZE;
+        } else {
+            plotX = AXIS_LABEL_SIZE + categoryMargin;
+            plotY = TITLE_HEIGHT;
+            plotWidth = width - plotX - 30;
+            plotHeight = height - plotY - valueMargin - AXIS_LABEL_SIZE;
+        }
+        if (plotWidth <= 0 || plotHeight <= 0) {
+            return;
+        }
+
+        // The scroll bar spans the part of the category axis that does not fit
+        double viewport = isVertical ? plotWidth : plotHeight;
+        double content = labels.length * slot();
+        scrollBar.setMax(Math.max(0, content - viewport));
+        scrollBar.setVisibleAmount(viewport);
+        scrollBar.setUnitIncrement(slot());
+        scrollBar.setBlockIncrement(viewport);
+        if (scrollBar.getValue() > scrollBar.getMax()) {
+            scrollBar.setValue(scrollBar.getMax()); // repaints through the listener
+            return;
+        }
+        double offset = scrollBar.getValue();
+
+        g.setFill(Color.BLACK);
+        g.setFont(TITLE_FONT);
+        g.setTextAlign(TextAlignment.CENTER);
+        g.setTextBaseline(VPos.CENTER);
+        g.fillText(title, width / 2, TITLE_HEIGHT / 2);
+
+        // Value axis grid and ticks
+        double valueLength = isVertical ? plotHeight : plotWidth;
+        g.setFont(TICK_FONT);
+        g.setStroke(Color.BLACK);
+        g.setLineWidth(0.5);
+        for (double tick = 0; tick <= upper + step / 2; tick += step) {
+            double position = tick / upper * valueLength;
+            String text = ChartRenderer.formatTick(tick, step);
+            if (isVertical) {
+                double y = plotY + plotHeight - position;
+                g.strokeLine(plotX, y, plotX + plotWidth, y);
+                g.setTextAlign(TextAlignment.RIGHT);
+                g.fillText(text, plotX - 6, y);
+            } else {
+                double x = plotX + position;
+                g.strokeLine(x, plotY, x, plotY + plotHeight);
+                g.setTextAlign(TextAlignment.CENTER);
+                g.fillText(text, x, plotY + plotHeight + 12);
+            }
+        }
+
+        // Visible bars only
+        int first = Math.max(0, (int) (offset / slot()));
+        int last = Math.min(labels.length - 1, (int) ((offset + viewport) / slot()));
+        boolean showValues = barSize >= 18;
+        boolean showNames = barSize >= 8;
+        g.save();
+        g.beginPath();
+        g.rect(isVertical ? plotX : 0, plotY, isVertical ? plotWidth : width, isVertical ? height - plotY : plotHeight);
+        g.clip();
+        for (int i = first; i <= last; i++) {
+            double start = i * slot() + barSize * 0.25 - offset;
+            double length = Math.max(0, values[i]) / upper * valueLength;
+            g.setFill(fills[i]);
+            if (isVertical) {
+                double x = plotX + start;
+                g.fillRect(x, plotY + plotHeight - length, barSize, length);
+                g.setFill(Color.BLACK);
+                if (showValues) {
+                    g.setFont(VALUE_FONT);
+                    g.setTextAlign(TextAlignment.CENTER);
+                    g.fillText(String.format("%.2f", values[i]), x + barSize / 2, plotY + plotHeight - 10);
+                }
+                if (showNames) {
+                    g.save();
+                    g.setFont(TICK_FONT);
+                    g.setTextAlign(TextAlignment.RIGHT);
+                    g.translate(x + barSize / 2, plotY + plotHeight + 6);
+                    g.rotate(-45);
+                    g.fillText(labels[i], 0, 0);
+                    g.restore();
+                }
+            } else {
+                double y = plotY + start;
+                g.fillRect(plotX, y, length, barSize);
+                g.setFill(Color.BLACK);
+                if (showValues) {
+                    g.setFont(VALUE_FONT);
+                    g.setTextAlign(TextAlignment.LEFT);
+                    g.fillText(String.format("%.2f", values[i]), plotX + 6, y + barSize / 2);
+                }
+                if (showNames) {
+                    g.setFont(TICK_FONT);
+                    g.setTextAlign(TextAlignment.RIGHT);
+                    g.fillText(labels[i], plotX - 6, y + barSize / 2, plotX - AXIS_LABEL_SIZE - 10);
+                }
+            }
+        }
+        g.restore();
+
+        // Axis lines and names
+        g.setStroke(Color.BLACK);
+        g.setLineWidth(1);
+        g.strokeLine(plotX, plotY + plotHeight, plotX + plotWidth, plotY + plotHeight);
+        g.strokeLine(plotX, plotY, plotX, plotY + plotHeight);
+        g.setFont(AXIS_FONT);
+        g.setTextAlign(TextAlignment.CENTER);
+        String horizontalName = isVertical ? categoryLabel : valueLabel;
+        String verticalName = isVertical ? valueLabel : categoryLabel;
+        g.fillText(horizontalName, plotX + plotWidth / 2, height - AXIS_LABEL_SIZE / 2);
+        g.save();
+        g.translate(AXIS_LABEL_SIZE / 2, plotY + plotHeight / 2);
+        g.rotate(-90);
+        g.fillText(verticalName, 0, 0);
+        g.restore();
+    }
+
+    // Wheel scrolls along the category axis; Ctrl + wheel zooms around the pointer.
+    private void scrolled(ScrollEvent e) {
+        double delta = e.getDeltaY() != 0 ? e.getDeltaY() : e.getDeltaX();
+        if (e.isControlDown()) {
+            double pointer = isVertical ? e.getX() - plotX : e.getY() - plotY;
+            double anchor = (scrollBar.getValue() + pointer) / slot(); // category under the pointer
+            barSize = Math.max(MIN_BAR, Math.min(MAX_BAR, barSize * (delta > 0 ? 1.25 : 0.8)));
+            requestLayout();
+            paint();
+            scrollBar.setValue(Math.max(0, Math.min(scrollBar.getMax(), anchor * slot() - pointer)));
+        } else {
+            scrollBar.setValue(Math.max(0, Math.min(scrollBar.getMax(), scrollBar.getValue() - delta)));
+        }
+        e.consume();
+    }
+
+    // Tooltip with the name and value of the bar under the pointer.
+    private void hovered(MouseEvent e) {
+        double position = (isVertical ? e.getX() - plotX : e.getY() - plotY) + scrollBar.getValue();
+        int i = (int) Math.floor(position / slot());
+        if (position >= 0 && i < labels.length) {
+            tooltip.setText(labels[i] + ": " + String.format("%.2f", values[i]));
+        } else {
+            tooltip.setText(valueLabel);
+        }
+    }
+}
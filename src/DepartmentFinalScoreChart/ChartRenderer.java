@@ -0,0 +1,184 @@
+package DepartmentFinalScoreChart;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Draws the department bar chart with Java2D, so charts can be exported without
+// starting the JavaFX toolkit. Sizes, colors and labels follow createChart.
+final class ChartRenderer {
+
+    static final String TITLE = "Average Final Scores by Department";
+    static final String CATEGORY_LABEL = "Department";
+    static final String VALUE_LABEL = "Average Final Score";
+
+    private static final double BAR_SIZE = 80;
+    private static final double CATEGORY_GAP = 50;
+    private static final int VALUE_AXIS_LENGTH = 450;
+    private static final int TOP = 60;
+    private static final int BOTTOM = 90;
+    private static final int RIGHT = 40;
+    // Most pixels rendered (256 MB of ARGB); larger charts get a lower scale
+    private static final double MAX_PIXELS = 64.0 * 1024 * 1024;
+
+    private static final Font TITLE_FONT = new Font("Comic Neue", Font.PLAIN, 20);
+    private static final Font AXIS_FONT = new Font("Comic Neue", Font.PLAIN, 16);
+    private static final Font VERTICAL_VALUE_FONT = new Font("Comic Neue", Font.BOLD, 12);
+    private static final Font HORIZONTAL_VALUE_FONT = new Font("Comic Neue", Font.BOLD, 16);
+
+    private ChartRenderer() {
+    }
+
+    // Renders the averages as a vertical or horizontal bar chart.
+    static BufferedImage render(Map<String, Double> averages, boolean isVertical) {
+        return render(TITLE, CATEGORY_LABEL, VALUE_LABEL, averages, isVertical, 1);
+    }
+
+    // Like render above with other labels, at imageScale pixels per point (less
+    // when the image would pass MAX_PIXELS).
+    static BufferedImage render(String title, String categoryLabel, String valueLabel,
+                                Map<String, Double> averages, boolean isVertical, double imageScale) {
+        List<String> categories = new ArrayList<>(averages.keySet());
+        int count = categories.size();
+        double categoryAxisLength = count <= 1
+            ? BAR_SIZE + (isVertical ? 2 : 4) * CATEGORY_GAP
+            : count * BAR_SIZE + (count + 1) * CATEGORY_GAP;
+        double max = 0;
+        for (double value : averages.values()) {
+            max = Math.max(max, value);
+        }
+        double[] scale = niceScale(max);
+        double upper = scale[0];
+        double step = scale[1];
+
+        // Measure labels to size the margins
+        BufferedImage probe = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D probeGraphics = probe.createGraphics();
+        FontMetrics axisMetrics = probeGraphics.getFontMetrics(AXIS_FONT);
+        int widestCategory = 0;
+        for (String category : categories) {
+            widestCategory = Math.max(widestCategory, axisMetrics.stringWidth(category));
+        }
+        int widestTick = axisMetrics.stringWidth(formatTick(upper, step));
+        probeGraphics.dispose();
+
+        int left = isVertical ? widestTick + 50 : widestCategory + 50;
+        int plotWidth = (int) Math.ceil(isVertical ? categoryAxisLength : VALUE_AXIS_LENGTH + 250);
+        int plotHeight = (int) Math.ceil(isVertical ? VALUE_AXIS_LENGTH : categoryAxisLength);
+        int width = left + plotWidth + RIGHT;
+        int height = TOP + plotHeight + BOTTOM;
+
+        double pixels = Math.min(imageScale, Math.sqrt(MAX_PIXELS / ((double) width * height)));
+        BufferedImage image = new BufferedImage((int) Math.ceil(width * pixels), (int) Math.ceil(height * pixels),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.scale(pixels, pixels);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setColor(Color.BLACK);
+
+            // Title
+            g.setFont(TITLE_FONT);
+            FontMetrics titleMetrics = g.getFontMetrics();
+            g.drawString(title, (width - titleMetrics.stringWidth(title)) / 2, TOP / 2 + titleMetrics.getAscent() / 2);
+
+            // Grid lines and value ticks
+            g.setFont(AXIS_FONT);
+            g.setStroke(new BasicStroke(0.5f));
+            for (double tick = 0; tick <= upper + step / 2; tick += step) {
+                String text = formatTick(tick, step);
+                if (isVertical) {
+                    int y = TOP + plotHeight - (int) Math.round(tick / upper * plotHeight);
+                    g.drawLine(left, y, left + plotWidth, y);
+                    g.drawString(text, left - 8 - axisMetrics.stringWidth(text), y + axisMetrics.getAscent() / 2 - 2);
+                } else {
+                    int x = left + (int) Math.round(tick / upper * plotWidth);
+                    g.drawLine(x, TOP, x, TOP + plotHeight);
+                    g.drawString(text, x - axisMetrics.stringWidth(text) / 2, TOP + plotHeight + 8 + axisMetrics.getAscent());
+                }
+            }
+
+            // Bars, value labels and category ticks
+            double categorySize = (isVertical ? plotWidth : plotHeight) / (double) Math.max(1, count);
+            double barSize = Math.min(BAR_SIZE, categorySize);
+            for (int i = 0; i < count; i++) {
+                String category = categories.get(i);
+                double value = averages.get(category);
+                double center = (i + 0.5) * categorySize;
+                double length = upper == 0 ? 0 : value / upper * (isVertical ? plotHeight : plotWidth);
+                String label = String.format("%.2f", value);
+                if (isVertical) {
+                    int x = left + (int) Math.round(center - barSize / 2);
+                    int y = TOP + plotHeight - (int) Math.round(length);
+                    g.setColor(DepartmentColors.awtColor(category));
+                    g.fillRect(x, y, (int) barSize, (int) Math.round(length));
+                    g.setColor(Color.BLACK);
+                    g.setFont(VERTICAL_VALUE_FONT);
+                    FontMetrics metrics = g.getFontMetrics();
+                    g.drawString(label, left + (int) Math.round(center) - metrics.stringWidth(label) / 2,
+                            TOP + plotHeight - metrics.getDescent() - 2);
+                    g.setFont(AXIS_FONT);
+                    g.drawString(category, left + (int) Math.round(center) - axisMetrics.stringWidth(category) / 2,
+                            TOP + plotHeight + 8 + axisMetrics.getAscent());
+                } else {
+                    int y = TOP + (int) Math.round(center - barSize / 2);
+                    g.setColor(DepartmentColors.awtColor(category));
+                    g.fillRect(left, y, (int) Math.round(length), (int) barSize);
+                    g.setColor(Color.BLACK);
+                    g.setFont(HORIZONTAL_VALUE_FONT);
+                    FontMetrics metrics = g.getFontMetrics();
+                    g.drawString(label, left + (int) Math.round(length / 2) - metrics.stringWidth(label) / 2,
+                            TOP + (int) Math.round(center) + metrics.getAscent() / 2 - 2);
+                    g.setFont(AXIS_FONT);
+                    g.drawString(category, left - 8 - axisMetrics.stringWidth(category),
+                            TOP + (int) Math.round(center) + axisMetrics.getAscent() / 2 - 2);
+                }
+            }
+
+            // Axis lines
+            g.setStroke(new BasicStroke(1f));
+            g.drawLine(left, TOP, left, TOP + plotHeight);
+            g.drawLine(left, TOP + plotHeight, left + plotWidth, TOP + plotHeight);
+
+            // Axis labels
+            g.setFont(AXIS_FONT);
+            String xLabel = isVertical ? categoryLabel : valueLabel;
+            String yLabel = isVertical ? valueLabel : categoryLabel;
+            g.drawString(xLabel, left + (plotWidth - axisMetrics.stringWidth(xLabel)) / 2, height - 20);
+            AffineTransform saved = g.getTransform();
+            g.rotate(-Math.PI / 2);
+            g.drawString(yLabel, -(TOP + (plotHeight + axisMetrics.stringWidth(yLabel)) / 2), 22);
+            g.setTransform(saved);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    // Returns {upper bound, tick step} for an axis from 0 to max, with 1/2/5 steps.
+    static double[] niceScale(double max) {
+        if (max <= 0) {
+            return new double[] {1, 0.2};
+        }
+        double rough = max / 8;
+        double magnitude = Math.pow(10, Math.floor(Math.log10(rough)));
+        double residual = rough / magnitude;
+        double step = (residual > 5 ? 10 : residual > 2 ? 5 : residual > 1 ? 2 : 1) * magnitude;
+        return new double[] {Math.ceil(max / step) * step, step};
+    }
+
+    static String formatTick(double value, double step) {
+        return step >= 1 ? String.format("%.0f", value) : String.format("%.1f", value);
+    }
+}
@@ -0,0 +1,48 @@
+package DepartmentFinalScoreChart;
+
+// Columns of the grading dataset that are kept in a StudentTable. Free-text
+// columns (Student_ID, names, Email) are never stored.
+enum Column {
+    GENDER("Gender", true),
+    AGE("Age", false),
+    DEPARTMENT("Department", true),
+    ATTENDANCE("Attendance (%)", false),
+    MIDTERM_SCORE("Midterm_Score", false),
+    FINAL_SCORE("Final_Score", false),
+    ASSIGNMENTS_AVG("Assignments_Avg", false),
+    QUIZZES_AVG("Quizzes_Avg", false),
+    PARTICIPATION_SCORE("Participation_Score", false),
+    PROJECTS_SCORE("Projects_Score", false),
+    TOTAL_SCORE("Total_Score", false),
+    GRADE("Grade", true),
+    STUDY_HOURS_PER_WEEK("Study_Hours_per_Week", false),
+    EXTRACURRICULAR_ACTIVITIES("Extracurricular_Activities", true),
+    INTERNET_ACCESS_AT_HOME("Internet_Access_at_Home", true),
+    PARENT_EDUCATION_LEVEL("Parent_Education_Level", true),
+    FAMILY_INCOME_LEVEL("Family_Income_Level", true),
+    STRESS_LEVEL("Stress_Level (1-10)", false),
+    SLEEP_HOURS_PER_NIGHT("Sleep_Hours_per_Night", false);
+
+    private final String header;
+    private final boolean categorical;
+
+    Column(String header, boolean categorical) {
+        this.header = header;
+        this.categorical = categorical;
+    }
+
+    // Column name as it appears in the CSV header.
+    String getHeader() {
+        return header;
+    }
+
+    // Categorical columns are dictionary-encoded; the others are numeric.
+    boolean isCategorical() {
+        return categorical;
+    }
+
+    @Override
+    public String toString() {
+        return header;
+    }
+}
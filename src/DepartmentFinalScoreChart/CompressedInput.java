@@ -0,0 +1,161 @@
+package DepartmentFinalScoreChart;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// Loads gzip (.csv.gz) and zip archives of grading CSVs without unpacking them
+// to disk. Each stream is inflated on its own thread by a PipelinedInputStream
+// while the loading thread parses the blocks already inflated, and the CSV
+// entries of a zip are loaded in parallel, one stream per entry, and merged
+// like the files of a multi-file load.
+//
+// A compressed stream cannot be memory-mapped or cut into chunks, so a
+// PARALLEL load (or an AUTO load of a large archive) streams into aggregates;
+// only FULL keeps the rows. Progress is reported in compressed bytes.
+final class CompressedInput {
+
+    // Extensions of the files the loaders accept, for file choosers and folder listings
+    static final String[] PATTERNS = {"*.csv", "*.gz", "*.zip"};
+
+    private static final int INFLATE_BUFFER = 64 * 1024;
+
+    enum Format {
+        NONE, GZIP, ZIP;
+
+        // Decided by the magic number at the start of the file, not by its name.
+        static Format of(File file) throws IOException {
+            byte[] magic = new byte[4];
+            int length;
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                length = in.readNBytes(magic, 0, magic.length);
+            }
+            if (length >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+                return GZIP;
+            }
+            // Local file header, or the end record of an empty archive
+            if (length == 4 && magic[0] == 'P' && magic[1] == 'K'
+                    && ((magic[2] == 3 && magic[3] == 4) || (magic[2] == 5 && magic[3] == 6))) {
+                return ZIP;
+            }
+            return NONE;
+        }
+    }
+
+    private CompressedInput() {
+    }
+
+    // True for names matching PATTERNS.
+    static boolean isInputName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        return name.endsWith(".csv") || name.endsWith(".gz") || name.endsWith(".zip");
+    }
+
+    // Loads a gzip or zip file; mode is already resolved.
+    static DatasetSnapshot load(File file, LoadMode mode, StudentDataProcessor.LoadMonitor monitor)
+            throws IOException {
+        boolean keepRows = mode == LoadMode.FULL;
+        switch (Format.of(file)) {
+            case GZIP:
+                return loadGzip(file, keepRows, monitor);
+            case ZIP:
+                return loadZip(file, keepRows, monitor);
+            default:
+                throw new IOException(file.getName() + " is neither a gzip nor a zip file");
+        }
+    }
+
+    private static DatasetSnapshot loadGzip(File file, boolean keepRows, StudentDataProcessor.LoadMonitor monitor)
+            throws IOException {
+        long totalBytes = file.length();
+        // Counted on the inflating thread, read by the parsing one
+        StudentDataProcessor.CountingInputStream compressed =
+                new StudentDataProcessor.CountingInputStream(Files.newInputStream(file.toPath()));
+        GZIPInputStream inflater;
+        try {
+            inflater = new GZIPInputStream(compressed, INFLATE_BUFFER);
+        } catch (IOException e) {
+            compressed.close();
+            throw e;
+        }
+        StudentDataProcessor.LoadMonitor compressedProgress = new StudentDataProcessor.LoadMonitor() {
+            @Override
+            public void progress(long rows, long bytesRead, long total) {
+                monitor.progress(rows, Math.min(compressed.count, totalBytes), totalBytes);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return monitor.isCancelled();
+            }
+        };
+        try (InputStream in = new PipelinedInputStream(inflater, file.getName())) {
+            return loadStream(file.getName(), in, totalBytes, keepRows, compressedProgress);
+        }
+    }
+
+    private static DatasetSnapshot loadZip(File file, boolean keepRows, StudentDataProcessor.LoadMonitor monitor)
+            throws IOException {
+        try (ZipFile zip = new ZipFile(file)) {
+            List<ZipEntry> entries = new ArrayList<>();
+            zip.stream().filter(CompressedInput::isCsvEntry).forEach(entries::add);
+            if (entries.isEmpty()) {
+                throw new IOException("No CSV files in " + file.getName());
+            }
+            if (entries.size() == 1) {
+                return loadEntry(zip, entries.get(0), file.getName(), keepRows, monitor);
+            }
+            long totalBytes = 0;
+            List<String> names = new ArrayList<>();
+            for (ZipEntry entry : entries) {
+                totalBytes += entry.getCompressedSize();
+                names.add(entry.getName());
+            }
+            return StudentDataProcessor.loadParts(file.getName(), names, totalBytes, (part, partMonitor) ->
+                    loadEntry(zip, entries.get(part), names.get(part), keepRows, partMonitor), monitor);
+        }
+    }
+
+    private static boolean isCsvEntry(ZipEntry entry) {
+        String name = entry.getName();
+        return !entry.isDirectory() && name.toLowerCase(Locale.ROOT).endsWith(".csv")
+                && !name.startsWith("__MACOSX/"); // resource forks added by macOS
+    }
+
+    // Loads one entry through its own inflating thread. The bytes parsed are
+    // scaled to the entry's compressed size for progress.
+    private static DatasetSnapshot loadEntry(ZipFile zip, ZipEntry entry, String name, boolean keepRows,
+                                             StudentDataProcessor.LoadMonitor monitor) throws IOException {
+        long size = entry.getSize();
+        long compressedSize = entry.getCompressedSize();
+        StudentDataProcessor.LoadMonitor compressedProgress = new StudentDataProcessor.LoadMonitor() {
+            @Override
+            public void progress(long rows, long bytesRead, long total) {
+                long scaled = size > 0 ? (long) ((double) Math.min(bytesRead, size) / size * compressedSize) : 0;
+                monitor.progress(rows, scaled, compressedSize);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return monitor.isCancelled();
+            }
+        };
+        try (InputStream in = new PipelinedInputStream(zip.getInputStream(entry), name)) {
+            return loadStream(name, in, size, keepRows, compressedProgress);
+        }
+    }
+
+    private static DatasetSnapshot loadStream(String name, InputStream in, long totalBytes, boolean keepRows,
+                                              StudentDataProcessor.LoadMonitor monitor) throws IOException {
+        return keepRows
+                ? StudentDataProcessor.loadSequential(name, in, totalBytes, monitor)
+                : StudentDataProcessor.loadStreaming(name, in, totalBytes, monitor);
+    }
+}
@@ -0,0 +1,92 @@
+package DepartmentFinalScoreChart;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Arrays;
+
+// Character encoding of a CSV file, decided explicitly rather than by the
+// platform default: a byte order mark wins, otherwise -Ddepartmentscore.charset
+// (e.g. windows-1252 for old spreadsheet exports), otherwise UTF-8.
+//
+// The byte-level loaders only work on ASCII-compatible encodings, where
+// commas, quotes, line breaks and digits are single ASCII bytes that never
+// occur inside another character. UTF-16 files go through the char tokenizer.
+final class CsvEncoding {
+
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final byte[] UTF16BE_BOM = {(byte) 0xFE, (byte) 0xFF};
+    private static final byte[] UTF16LE_BOM = {(byte) 0xFF, (byte) 0xFE};
+
+    // Bytes at the start of a file that decide its encoding
+    static final int MARK_LENGTH = UTF8_BOM.length;
+
+    final Charset charset;
+    final int bomLength; // bytes to skip before the header
+
+    private CsvEncoding(Charset charset, int bomLength) {
+        this.charset = charset;
+        this.bomLength = bomLength;
+    }
+
+    // Reads the first bytes of the file without moving the channel's position.
+    static CsvEncoding detect(FileChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(MARK_LENGTH);
+        while (head.hasRemaining()) {
+            if (channel.read(head, head.position()) <= 0) {
+                break; // file shorter than a mark
+            }
+        }
+        return of(head.array(), head.position());
+    }
+
+    // Encoding of a file starting with head[0, length).
+    static CsvEncoding of(byte[] head, int length) {
+        if (startsWith(head, length, UTF8_BOM)) {
+            return new CsvEncoding(StandardCharsets.UTF_8, UTF8_BOM.length);
+        }
+        if (startsWith(head, length, UTF16BE_BOM) || startsWith(head, length, UTF16LE_BOM)) {
+            // The UTF-16 decoder reads the mark itself to pick the byte order
+            return new CsvEncoding(StandardCharsets.UTF_16, 0);
+        }
+        return new CsvEncoding(configured(), 0);
+    }
+
+    private static Charset configured() {
+        String name = System.getProperty("departmentscore.charset");
+        if (name == null) {
+            return StandardCharsets.UTF_8;
+        }
+        try {
+            return Charset.forName(name.trim());
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            throw new IllegalArgumentException("Unknown charset: " + name, e);
+        }
+    }
+
+    private static boolean startsWith(byte[] head, int length, byte[] mark) {
+        return length >= mark.length && Arrays.equals(head, 0, mark.length, mark, 0, mark.length);
+    }
+
+    // True when the byte-level scanner can tokenize this encoding.
+    boolean isAsciiCompatible() {
+        if (charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)) {
+            return true;
+        }
+        // Single-byte charsets that keep ASCII as is (ISO-8859-*, windows-125*)
+        if (!charset.canEncode() || charset.newEncoder().maxBytesPerChar() != 1) {
+            return false;
+        }
+        String ascii = " \t\r\n\",.-+0123456789eEAZaz";
+        return Arrays.equals(ascii.getBytes(charset), ascii.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public String toString() {
+        return charset.name() + (bomLength > 0 ? " with BOM" : "");
+    }
+}
@@ -0,0 +1,24 @@
+package DepartmentFinalScoreChart;
+
+// The current record of a CSV tokenizer, exposing only the selected columns
+// by slot. Implemented by both the char-level and byte-level tokenizers.
+interface CsvRecord {
+
+    // Number of fields in the current record.
+    int fieldCount();
+
+    // Line on which the current record starts.
+    long lineNumber();
+
+    // True when the captured field is empty or whitespace only.
+    boolean isBlank(int slot);
+
+    // Trimmed field text.
+    String text(int slot);
+
+    // Untrimmed field text, only used for error messages.
+    String rawText(int slot);
+
+    // Field parsed as a decimal number; throws NumberFormatException.
+    double number(int slot);
+}
@@ -0,0 +1,317 @@
+package DepartmentFinalScoreChart;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Single-pass RFC 4180 tokenizer. Only the selected columns are copied out of the
+// read buffer; every other field is scanned by the state machine and dropped.
+// Quoted fields may contain commas, escaped quotes ("") and line breaks.
+class CsvRecordReader implements CsvRecord, Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Tokenizer states
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+
+    // Column index -> capture slot, or -1 when the column is skipped
+    private int[] slotOfColumn = new int[0];
+    private char[][] slotText = new char[0][];
+    private int[] slotLength = new int[0];
+
+    private int fieldCount;
+    private long lineNumber = 1;   // line the next record starts on
+    private long recordLine;       // line the current record started on
+    private final StringPool pool = new StringPool();
+
+    CsvRecordReader(Reader in) {
+        this.in = in;
+    }
+
+    // Reads the first record with every column kept, for the header scan.
+    String[] readHeader() throws IOException {
+        List<String> headers = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int state = FIELD_START;
+        int c;
+        while ((c = read()) >= 0) {
+            if (state == QUOTED) {
+                if (c == '"') {
+                    state = QUOTE_IN_QUOTED;
+                    continue;
+                }
+                if (c == '\n') {
+                    lineNumber++;
+                }
+            } else if (state == QUOTE_IN_QUOTED && c == '"') {
+                state = QUOTED;
+            } else if (c == ',') {
+                headers.add(field.toString().trim());
+                field.setLength(0);
+                state = FIELD_START;
+                continue;
+            } else if (c == '\n' || c == '\r') {
+                consumeLineFeedAfter(c);
+                lineNumber++;
+                break;
+            } else if (state == FIELD_START && c == '"') {
+                state = QUOTED;
+                continue;
+            } else {
+                state = UNQUOTED;
+            }
+            field.append((char) c);
+        }
+        if (c >= 0 || state != FIELD_START || field.length() > 0 || !headers.isEmpty()) {
+            headers.add(field.toString().trim());
+        }
+        return headers.toArray(new String[0]);
+    }
+
+    // Chooses which columns are copied out of each record; slot i holds columns[i].
+    void select(int... columns) {
+        int width = 0;
+        for (int column : columns) {
+            width = Math.max(width, column + 1);
+        }
+        slotOfColumn = new int[width];
+        Arrays.fill(slotOfColumn, -1);
+        slotText = new char[columns.length][32];
+        slotLength = new int[columns.length];
+        for (int slot = 0; slot < columns.length; slot++) {
+            slotOfColumn[columns[slot]] = slot;
+        }
+    }
+
+    // Advances to the next non-blank record. Returns false at end of input.
+    boolean next() throws IOException {
+        final int[] slots = slotOfColumn;
+        final int[] lengths = slotLength;
+        Arrays.fill(lengths, 0);
+        int state = FIELD_START;
+        int field = 0;
+        int slot = slots.length > 0 ? slots[0] : -1;
+        char[] text = slot >= 0 ? slotText[slot] : null;
+        int length = 0;
+        boolean empty = true; // nothing but line breaks seen so far
+        recordLine = lineNumber;
+
+        while (true) {
+            if (position >= limit && !fill()) {
+                if (empty) {
+                    return false;
+                }
+                break; // last record has no trailing line break
+            }
+            char c = buffer[position++];
+            if (state == QUOTED) {
+                if (c == '"') {
+                    state = QUOTE_IN_QUOTED;
+                    continue;
+                }
+                if (c == '\n') {
+                    lineNumber++;
+                }
+            } else if (state == QUOTE_IN_QUOTED && c == '"') {
+                state = QUOTED; // escaped quote, kept below
+            } else if (c == ',') {
+                if (slot >= 0) {
+                    lengths[slot] = length;
+                }
+                field++;
+                slot = field < slots.length ? slots[field] : -1;
+                text = slot >= 0 ? slotText[slot] : null;
+                length = 0;
+                state = FIELD_START;
+                empty = false;
+                continue;
+            } else if (c == '\n' || c == '\r') {
+                consumeLineFeedAfter(c);
+                lineNumber++;
+                if (empty) {
+                    recordLine = lineNumber; // blank line
+                    continue;
+                }
+                break;
+            } else if (state == FIELD_START && c == '"') {
+                state = QUOTED;
+                empty = false;
+                continue;
+            } else {
+                state = UNQUOTED; // also covers stray text after a closing quote
+            }
+            empty = false;
+            if (text != null) {
+                if (length == text.length) {
+                    text = slotText[slot] = Arrays.copyOf(text, length * 2);
+                }
+                text[length++] = c;
+            }
+        }
+        if (slot >= 0) {
+            lengths[slot] = length;
+        }
+        fieldCount = field + 1;
+        return true;
+    }
+
+    // Treats "\r\n" as a single line break.
+    private void consumeLineFeedAfter(int c) throws IOException {
+        if (c == '\r' && (position < limit || fill()) && buffer[position] == '\n') {
+            position++;
+        }
+    }
+
+    private int read() throws IOException {
+        if (position >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            endOfInput = true;
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    // Number of fields in the current record.
+    @Override
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    // Line on which the current record starts (1-based, header is line 1).
+    @Override
+    public long lineNumber() {
+        return recordLine;
+    }
+
+    // True when the captured field is empty or whitespace only.
+    @Override
+    public boolean isBlank(int slot) {
+        char[] text = slotText[slot];
+        for (int i = 0, n = slotLength[slot]; i < n; i++) {
+            if (text[i] > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Returns the trimmed field, reusing an earlier String with the same characters.
+    @Override
+    public String text(int slot) {
+        char[] text = slotText[slot];
+        int start = 0;
+        int end = slotLength[slot];
+        while (start < end && text[start] <= ' ') {
+            start++;
+        }
+        while (end > start && text[end - 1] <= ' ') {
+            end--;
+        }
+        return pool.get(text, start, end);
+    }
+
+    // Raw field text, only used for error messages.
+    @Override
+    public String rawText(int slot) {
+        return new String(slotText[slot], 0, slotLength[slot]);
+    }
+
+    // Parses the field as a decimal number straight from the captured characters.
+    @Override
+    public double number(int slot) {
+        return DecimalParser.parse(slotText[slot], 0, slotLength[slot]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // Small open-addressing table so repeated categorical values (departments)
+    // resolve to one shared String instead of a new allocation per row.
+    private static final class StringPool {
+        private static final int MAX_ENTRIES = 4096;
+
+        private String[] table = new String[64];
+        private int size;
+
+        String get(char[] text, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + text[i];
+            }
+            int mask = table.length - 1;
+            int index = mix(hash) & mask;
+            String entry;
+            while ((entry = table[index]) != null) {
+                if (entry.hashCode() == hash && matches(entry, text, start, end)) {
+                    return entry;
+                }
+                index = (index + 1) & mask;
+            }
+            String value = new String(text, start, end - start);
+            if (size < MAX_ENTRIES) {
+                table[index] = value;
+                if (++size * 2 > table.length) {
+                    rehash();
+                }
+            }
+            return value;
+        }
+
+        private static boolean matches(String entry, char[] text, int start, int end) {
+            if (entry.length() != end - start) {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                if (entry.charAt(i - start) != text[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int mix(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private void rehash() {
+            String[] old = table;
+            table = new String[old.length * 2];
+            int mask = table.length - 1;
+            for (String entry : old) {
+                if (entry != null) {
+                    int index = mix(entry.hashCode()) & mask;
+                    while (table[index] != null) {
+                        index = (index + 1) & mask;
+                    }
+                    table[index] = entry;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package DepartmentFinalScoreChart;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Immutable result of one completed load. The UI swaps whole snapshots, so a
+// reset or a second load never mutates data another thread is still reading.
+// The accumulators are not modified once the snapshot is published.
+final class DatasetSnapshot {
+    private final String sourceName;
+    private final StudentTable table;
+    private final Map<String, ScoreAccumulator> departmentStats;
+    private final Map<String, Double> departmentAverages;
+    private final List<DatasetSnapshot> parts;
+    private final LoadDiagnostics diagnostics;
+
+    // table is null when the rows were not kept (streaming and parallel loads)
+    DatasetSnapshot(String sourceName, StudentTable table, Map<String, ScoreAccumulator> departmentStats,
+                    LoadDiagnostics diagnostics) {
+        this(sourceName, table, departmentStats, Collections.emptyList(), diagnostics);
+    }
+
+    // A merged snapshot; parts holds the per-file snapshots it was built from.
+    DatasetSnapshot(String sourceName, StudentTable table, Map<String, ScoreAccumulator> departmentStats,
+                    List<DatasetSnapshot> parts) {
+        this(sourceName, table, departmentStats, parts, mergedDiagnostics(sourceName, parts));
+    }
+
+    private DatasetSnapshot(String sourceName, StudentTable table, Map<String, ScoreAccumulator> departmentStats,
+                            List<DatasetSnapshot> parts, LoadDiagnostics diagnostics) {
+        this.sourceName = sourceName;
+        this.table = table;
+        this.departmentStats = Collections.unmodifiableMap(departmentStats);
+        this.departmentAverages = Collections.unmodifiableMap(ScoreAccumulator.averages(departmentStats));
+        this.parts = Collections.unmodifiableList(parts);
+        this.diagnostics = diagnostics;
+    }
+
+    private static LoadDiagnostics mergedDiagnostics(String sourceName, List<DatasetSnapshot> parts) {
+        List<LoadDiagnostics> diagnostics = new ArrayList<>();
+        for (DatasetSnapshot part : parts) {
+            diagnostics.add(part.getDiagnostics());
+        }
+        return LoadDiagnostics.merge(sourceName, diagnostics);
+    }
+
+    String getSourceName() {
+        return sourceName;
+    }
+
+    // Every loaded row, or null when only aggregates were kept.
+    StudentTable getTable() {
+        return table;
+    }
+
+    Map<String, ScoreAccumulator> getDepartmentStats() {
+        return departmentStats;
+    }
+
+    // Rows counted into the statistics, whether or not they were kept.
+    long getRowCount() {
+        long rows = 0;
+        for (ScoreAccumulator accumulator : departmentStats.values()) {
+            rows += accumulator.getCount();
+        }
+        return rows;
+    }
+
+    Map<String, Double> getDepartmentAverages() {
+        return departmentAverages;
+    }
+
+    // Rough heap footprint: the kept rows and a full quantile sketch per
+    // department, the parts' included.
+    long estimatedBytes() {
+        long bytes = table == null ? 0 : table.estimatedBytes();
+        bytes += (long) departmentStats.size() * 3 * QuantileSketch.K * Double.BYTES;
+        for (DatasetSnapshot part : parts) {
+            bytes += part.estimatedBytes();
+        }
+        return bytes;
+    }
+
+    // Bad rows found while parsing (all files of a merged snapshot).
+    LoadDiagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    // This snapshot with the same statistics and diagnostics but no rows.
+    DatasetSnapshot withoutTable() {
+        return table == null ? this : new DatasetSnapshot(sourceName, null, departmentStats, parts, diagnostics);
+    }
+
+    // Per-file snapshots of a multi-file load, without rows; empty for a single file.
+    List<DatasetSnapshot> getParts() {
+        return parts;
+    }
+}
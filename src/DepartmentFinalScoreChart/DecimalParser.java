@@ -0,0 +1,117 @@
+package DepartmentFinalScoreChart;
+
+import java.nio.charset.StandardCharsets;
+
+// Parses plain decimal numbers ("57.82", "-3", ".5") directly from characters.
+// When the digits fit in a double's 53-bit mantissa and there are at most 22
+// fraction digits, mantissa / 10^n is exact-over-exact and therefore rounds the
+// same way Double.parseDouble does. Anything else (exponents, NaN, very long
+// digit strings) falls back to Double.parseDouble.
+final class DecimalParser {
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+        }
+    }
+
+    private DecimalParser() {
+    }
+
+    // Parses text[start, end) ignoring surrounding whitespace.
+    // Throws NumberFormatException for text that is not a number.
+    static double parse(char[] text, int start, int end) {
+        while (start < end && text[start] <= ' ') {
+            start++;
+        }
+        while (end > start && text[end - 1] <= ' ') {
+            end--;
+        }
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text[i] == '-' || text[i] == '+')) {
+            negative = text[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            char c = text[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+                if (mantissa >= MAX_EXACT_MANTISSA) {
+                    return slowParse(text, start, end);
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                return slowParse(text, start, end);
+            }
+        }
+        if (digits == 0 || fractionDigits >= POWERS_OF_TEN.length) {
+            return slowParse(text, start, end);
+        }
+        double value = fractionDigits == 0 ? (double) mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    // Same as parse(char[], int, int) for ASCII digits held in bytes.
+    static double parse(byte[] text, int start, int end) {
+        while (start < end && (text[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (text[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text[i] == '-' || text[i] == '+')) {
+            negative = text[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            byte c = text[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+                if (mantissa >= MAX_EXACT_MANTISSA) {
+                    return slowParse(text, start, end);
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                return slowParse(text, start, end);
+            }
+        }
+        if (digits == 0 || fractionDigits >= POWERS_OF_TEN.length) {
+            return slowParse(text, start, end);
+        }
+        double value = fractionDigits == 0 ? (double) mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private static double slowParse(char[] text, int start, int end) {
+        return Double.parseDouble(new String(text, start, end - start));
+    }
+
+    private static double slowParse(byte[] text, int start, int end) {
+        return Double.parseDouble(new String(text, start, end - start, StandardCharsets.ISO_8859_1));
+    }
+}
@@ -0,0 +1,296 @@
+package DepartmentFinalScoreChart;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javafx.animation.FadeTransition;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.chart.Axis;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Label;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.util.Duration;
+
+// The department bar chart, kept across loads and orientation switches. One
+// BarChart per orientation is built on first use and afterwards only its series
+// data is updated: existing bars get new values, bars are added or removed only
+// for departments that appear or disappear. Colors, fonts and axis styling come
+// from chart.css; each bar carries a department style class (or none when every
+// file is drawn as its own series) and a value label created once per bar.
+// The box plot of score quantiles is kept and updated the same way. Above
+// CANVAS_THRESHOLD categories a single series is drawn by CanvasBarChart
+// instead, which paints only the visible bars.
+final class DepartmentChart {
+
+    static final String TITLE = "Average Final Scores by Department";
+
+    static final int CANVAS_THRESHOLD = 40;
+
+    private static final double BAR_SIZE = 80;
+    private static final double CATEGORY_GAP = 50;
+    private static final String STYLESHEET = DepartmentChart.class.getResource("chart.css").toExternalForm();
+
+    private BarChart<Object, Object> vertical;
+    private BarChart<Object, Object> horizontal;
+    private BoxPlotChart boxPlot;
+    private CanvasBarChart canvasVertical;
+    private CanvasBarChart canvasHorizontal;
+
+    // Shows averages (one series) or one series per file in the chart of the
+    // requested orientation and returns that chart. groupBy names the axes.
+    Region show(boolean isVertical, GroupBy groupBy, Map<String, Double> averages,
+                List<DatasetSnapshot> fileSeries) {
+        if (fileSeries.isEmpty() && averages.size() > CANVAS_THRESHOLD) {
+            return showCanvas(isVertical, groupBy, averages);
+        }
+        boolean created = false;
+        if (isVertical && vertical == null) {
+            vertical = create(true);
+            created = true;
+        } else if (!isVertical && horizontal == null) {
+            horizontal = create(false);
+            created = true;
+        }
+        BarChart<Object, Object> chart = isVertical ? vertical : horizontal;
+        label(chart, isVertical, groupBy);
+        boolean perFile = !fileSeries.isEmpty();
+        List<Map<String, Double>> values = seriesValues(averages, fileSeries);
+
+        while (chart.getData().size() < values.size()) {
+            chart.getData().add(new XYChart.Series<>());
+        }
+        while (chart.getData().size() > values.size()) {
+            chart.getData().remove(chart.getData().size() - 1);
+        }
+        for (int i = 0; i < values.size(); i++) {
+            XYChart.Series<Object, Object> series = chart.getData().get(i);
+            series.setName(perFile ? fileSeries.get(i).getSourceName() : null);
+            update(series, values.get(i), isVertical, perFile);
+        }
+
+        // Each category holds one bar per series
+        int count = averages.size() * Math.max(1, fileSeries.size());
+        double length = count == 1
+            ? BAR_SIZE + (isVertical ? 2 : 4) * CATEGORY_GAP
+            : count * BAR_SIZE + (count + 1) * CATEGORY_GAP;
+        if (isVertical) {
+            chart.setMinWidth(length);
+            chart.setPrefWidth(length);
+            chart.setMaxWidth(length);
+        } else {
+            chart.setMinHeight(length);
+            chart.setPrefHeight(length);
+            chart.setMaxHeight(length);
+        }
+        chart.setLegendVisible(perFile); // file series use the chart's own legend
+
+        if (created) {
+            FadeTransition ft = new FadeTransition(Duration.millis(800), chart);
+            ft.setFromValue(0.0);
+            ft.setToValue(1.0);
+            ft.play();
+        }
+        return chart;
+    }
+
+    private CanvasBarChart showCanvas(boolean isVertical, GroupBy groupBy, Map<String, Double> averages) {
+        CanvasBarChart chart = isVertical ? canvasVertical : canvasHorizontal;
+        if (chart == null) {
+            chart = new CanvasBarChart(isVertical);
+            BorderPane.setMargin(chart, new Insets(20));
+            if (isVertical) {
+                canvasVertical = chart;
+            } else {
+                canvasHorizontal = chart;
+            }
+        }
+        boolean departmentAverage = groupBy.equals(GroupBy.DEPARTMENT_AVERAGE);
+        chart.setLabels(departmentAverage ? TITLE : groupBy.title(),
+                departmentAverage ? "Department" : groupBy.categoryLabel(),
+                departmentAverage ? "Average Final Score" : groupBy.valueLabel());
+        chart.setData(averages);
+        return chart;
+    }
+
+    // Shows the score distribution of each department, in the order of averages.
+    BoxPlotChart showBoxPlot(Map<String, Double> averages, Map<String, ScoreAccumulator> stats) {
+        boolean created = boxPlot == null;
+        if (created) {
+            CategoryAxis categoryAxis = new CategoryAxis();
+            NumberAxis valueAxis = new NumberAxis();
+            categoryAxis.setLabel("Department");
+            valueAxis.setLabel("Final Score");
+            valueAxis.setForceZeroInRange(false);
+            boxPlot = new BoxPlotChart(categoryAxis, valueAxis);
+            boxPlot.getStylesheets().add(STYLESHEET);
+            boxPlot.setTitle("Final Score Distribution by Department");
+            boxPlot.setAnimated(false);
+            boxPlot.getData().add(new XYChart.Series<>());
+            BorderPane.setMargin(boxPlot, new Insets(20));
+        }
+        XYChart.Series<String, Number> series = boxPlot.getData().get(0);
+        Map<String, XYChart.Data<String, Number>> existing = new HashMap<>();
+        for (Iterator<XYChart.Data<String, Number>> it = series.getData().iterator(); it.hasNext(); ) {
+            XYChart.Data<String, Number> item = it.next();
+            if (stats.containsKey(item.getXValue())) {
+                existing.put(item.getXValue(), item);
+            } else {
+                it.remove();
+            }
+        }
+        List<XYChart.Data<String, Number>> added = new ArrayList<>();
+        for (String department : averages.keySet()) {
+            ScoreAccumulator accumulator = stats.get(department);
+            if (accumulator == null) {
+                continue;
+            }
+            double[] quantiles = accumulator.getQuantiles(BoxPlotChart.QUANTILES);
+            XYChart.Data<String, Number> item = existing.get(department);
+            if (item == null) {
+                item = new XYChart.Data<>(department, quantiles[2], quantiles);
+                added.add(item);
+            } else {
+                item.setExtraValue(quantiles);
+                item.setYValue(quantiles[2]);
+            }
+        }
+        series.getData().addAll(added);
+
+        int count = series.getData().size();
+        double length = count == 1
+            ? BAR_SIZE + 2 * CATEGORY_GAP
+            : count * BAR_SIZE + (count + 1) * CATEGORY_GAP;
+        boxPlot.setMinWidth(length);
+        boxPlot.setPrefWidth(length);
+        boxPlot.setMaxWidth(length);
+
+        if (created) {
+            FadeTransition ft = new FadeTransition(Duration.millis(800), boxPlot);
+            ft.setFromValue(0.0);
+            ft.setToValue(1.0);
+            ft.play();
+        }
+        return boxPlot;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static BarChart<Object, Object> create(boolean isVertical) {
+        CategoryAxis categoryAxis = new CategoryAxis();
+        NumberAxis valueAxis = new NumberAxis();
+        BarChart<Object, Object> chart = isVertical
+            ? new BarChart<>((Axis) categoryAxis, (Axis) valueAxis)
+            : new BarChart<>((Axis) valueAxis, (Axis) categoryAxis);
+        chart.getStylesheets().add(STYLESHEET);
+        chart.getStyleClass().add(isVertical ? "vertical" : "horizontal");
+        chart.setAnimated(false);
+        chart.setCategoryGap(CATEGORY_GAP);
+        chart.setBarGap(0);
+        BorderPane.setMargin(chart, new Insets(20));
+        return chart;
+    }
+
+    private static void label(BarChart<Object, Object> chart, boolean isVertical, GroupBy groupBy) {
+        Axis<?> categoryAxis = isVertical ? chart.getXAxis() : chart.getYAxis();
+        Axis<?> valueAxis = isVertical ? chart.getYAxis() : chart.getXAxis();
+        boolean departmentAverage = groupBy.equals(GroupBy.DEPARTMENT_AVERAGE);
+        categoryAxis.setLabel(departmentAverage ? "Department" : groupBy.categoryLabel());
+        valueAxis.setLabel(departmentAverage ? "Average Final Score" : groupBy.valueLabel());
+        chart.setTitle(departmentAverage ? TITLE : groupBy.title());
+    }
+
+    // Brings one series to exactly the given department values, reusing bars.
+    private static void update(XYChart.Series<Object, Object> series, Map<String, Double> values,
+                               boolean isVertical, boolean perFile) {
+        Map<String, XYChart.Data<Object, Object>> existing = new HashMap<>();
+        for (Iterator<XYChart.Data<Object, Object>> it = series.getData().iterator(); it.hasNext(); ) {
+            XYChart.Data<Object, Object> bar = it.next();
+            String category = (String) (isVertical ? bar.getXValue() : bar.getYValue());
+            if (values.containsKey(category)) {
+                existing.put(category, bar);
+            } else {
+                it.remove();
+            }
+        }
+        List<XYChart.Data<Object, Object>> added = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            XYChart.Data<Object, Object> bar = existing.get(entry.getKey());
+            if (bar == null) {
+                bar = isVertical
+                    ? new XYChart.Data<>(entry.getKey(), entry.getValue())
+                    : new XYChart.Data<>(entry.getValue(), entry.getKey());
+                added.add(bar);
+            } else if (isVertical) {
+                bar.setYValue(entry.getValue());
+            } else {
+                bar.setXValue(entry.getValue());
+            }
+        }
+        series.getData().addAll(added);
+        for (XYChart.Data<Object, Object> bar : series.getData()) {
+            String category = (String) (isVertical ? bar.getXValue() : bar.getYValue());
+            decorate(bar.getNode(), category, values.get(category), isVertical, perFile);
+        }
+    }
+
+    // Sets the department style class and value label of a bar node.
+    private static void decorate(Node node, String department, double value, boolean isVertical,
+                                 boolean perFile) {
+        if (!(node instanceof StackPane)) {
+            return;
+        }
+        StackPane bar = (StackPane) node;
+        // Touch the style classes only when they change, as that restyles the bar
+        String styleClass = perFile ? null : DepartmentColors.styleClass(department);
+        if (styleClass == null || !bar.getStyleClass().contains(styleClass)) {
+            bar.getStyleClass().removeIf(name -> name.startsWith(DepartmentColors.STYLE_CLASS_PREFIX));
+            if (styleClass != null) {
+                bar.getStyleClass().add(styleClass);
+            }
+        }
+        Label label = null;
+        for (Node child : bar.getChildren()) {
+            if (child instanceof Label) {
+                label = (Label) child;
+            }
+        }
+        if (label == null) {
+            label = new Label();
+            label.getStyleClass().add("bar-value");
+            bar.getChildren().add(label);
+            StackPane.setAlignment(label, isVertical ? Pos.BOTTOM_CENTER : Pos.CENTER);
+        }
+        label.setText(String.format("%.2f", value));
+    }
+
+    // Department -> average for each series: the merged averages, or one map per file.
+    // Every series lists the departments in the same order as the merged averages.
+    private static List<Map<String, Double>> seriesValues(Map<String, Double> averages,
+                                                          List<DatasetSnapshot> fileSeries) {
+        List<Map<String, Double>> values = new ArrayList<>();
+        if (fileSeries.isEmpty()) {
+            values.add(averages);
+            return values;
+        }
+        for (DatasetSnapshot part : fileSeries) {
+            Map<String, Double> partValues = new LinkedHashMap<>();
+            for (String department : averages.keySet()) {
+                Double average = part.getDepartmentAverages().get(department);
+                if (average != null) {
+                    partValues.put(department, average);
+                }
+            }
+            values.add(partValues);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,84 @@
+package DepartmentFinalScoreChart;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Bar colors of the known departments, shared by the on-screen chart and the
+// headless renderers.
+final class DepartmentColors {
+
+    static final String CS_COLOR = "#ADD8E6"; // Dark Blue
+    static final String MATHEMATICS_COLOR = "#FF0000"; // Red
+    static final String ENGINEERING_COLOR = "#008000"; // Green
+    static final String BUSINESS_COLOR = "#FFD700"; // Yellow/Gold
+    static final String DEFAULT_COLOR = "#808080"; // Gray
+
+    // Prefix of the bar style classes defined in chart.css
+    static final String STYLE_CLASS_PREFIX = "department-";
+
+    private DepartmentColors() {
+    }
+
+    // Returns the color code for a given department
+    static String of(String department) {
+        switch (department.trim()) {
+            case "CS":
+                return CS_COLOR;
+            case "Mathematics":
+                return MATHEMATICS_COLOR;
+            case "Engineering":
+                return ENGINEERING_COLOR;
+            case "Business":
+                return BUSINESS_COLOR;
+            default:
+                return DEFAULT_COLOR;
+        }
+    }
+
+    // Style class of a department's bars; chart.css gives each one its color.
+    static String styleClass(String department) {
+        switch (department.trim()) {
+            case "CS":
+                return STYLE_CLASS_PREFIX + "cs";
+            case "Mathematics":
+                return STYLE_CLASS_PREFIX + "mathematics";
+            case "Engineering":
+                return STYLE_CLASS_PREFIX + "engineering";
+            case "Business":
+                return STYLE_CLASS_PREFIX + "business";
+            default:
+                return STYLE_CLASS_PREFIX + "other";
+        }
+    }
+
+    // Legend entries (label -> color code) for the given groups: one per group,
+    // or one per color once there are more than limit groups.
+    static Map<String, String> legend(Collection<String> groups, int limit) {
+        Map<String, String> entries = new LinkedHashMap<>();
+        if (groups.size() <= limit) {
+            for (String group : groups) {
+                entries.put(group, of(group));
+            }
+            return entries;
+        }
+        Map<String, Integer> colorCounts = new LinkedHashMap<>();
+        Map<String, String> firstNames = new HashMap<>();
+        for (String group : groups) {
+            colorCounts.merge(of(group), 1, Integer::sum);
+            firstNames.putIfAbsent(of(group), group);
+        }
+        for (Map.Entry<String, Integer> entry : colorCounts.entrySet()) {
+            int count = entry.getValue();
+            String name = firstNames.get(entry.getKey());
+            entries.put(count == 1 ? name : String.format("%s and %,d more", name, count - 1), entry.getKey());
+        }
+        return entries;
+    }
+
+    // Same color as java.awt.Color for the Java2D renderer.
+    static java.awt.Color awtColor(String department) {
+        return java.awt.Color.decode(of(department));
+    }
+}
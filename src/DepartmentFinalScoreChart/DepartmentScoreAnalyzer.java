@@ -4,18 +4,22 @@ import javafx.animation.FadeTransition;
 import javafx.animation.ScaleTransition;
 import javafx.application.Application;
 import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.SnapshotParameters;
-import javafx.scene.chart.BarChart;
-import javafx.scene.chart.CategoryAxis;
-import javafx.scene.chart.NumberAxis;
-import javafx.scene.chart.XYChart;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.TextField;
+import javafx.scene.control.Tooltip;
 import javafx.scene.image.WritableImage;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
@@ -25,44 +29,59 @@ import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import javafx.scene.transform.Transform;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.util.Duration;
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.BufferedReader;
+import javafx.util.StringConverter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-
-// PDFBox imports – ensure these jars (pdfbox, fontbox, commons-logging, etc.) are in your lib folder
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
-import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public class DepartmentScoreAnalyzer extends Application {
 
-    // Data structures for student records and computed averages
-    private List<Student> students = new ArrayList<>();
-    private Map<String, Double> departmentAverages;
+    // Printed by -Ddepartmentscore.startupProbe runs (see probeStartup)
+    static final String FIRST_FRAME_MARKER = "DepartmentScoreAnalyzer: first frame";
+
+    // Data structures for the loaded dataset and computed averages
+    private DatasetSnapshot snapshot; // Last completed load, replaced as a whole
+    private Map<String, Double> chartValues; // Shown in the chart: department averages or the chosen grouping
+    private LoadTask currentLoad; // Load in progress, or null
+    private final ExecutorService loadExecutor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "csv-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Converts and encodes exported images one at a time, off the FX thread; created on first export
+    private ExecutorService exportExecutor;
+    private int exportScale = 1; // Pixel scale of PNG exports and chart snapshots (2 or 4 for print)
     private VBox legendBox; // Custom legend container
-    private BorderPane appPane; // Main app layout pane
-    private BarChart chart;   // Currently displayed chart
+    private BorderPane appPane; // Main app layout pane, built when Start is first pressed
+    private final DepartmentChart departmentChart = new DepartmentChart(); // Reused across loads and toggles
+    private Region chart;           // Currently displayed chart
     private boolean isVerticalChart = true; // Toggle flag for chart orientation
-
-    // Define department colors
-    private static final String CS_COLOR = "#ADD8E6"; // Dark Blue
-    private static final String MATHEMATICS_COLOR = "#FF0000"; // Red
-    private static final String ENGINEERING_COLOR = "#008000"; // Green
-    private static final String BUSINESS_COLOR = "#FFD700"; // Yellow/Gold
+    private boolean perFileSeries; // Draw each file of a multi-file load as its own series
+    private boolean boxPlot; // Show score quantiles per department instead of averages
+    private RowBitmap filterRows; // Kept rows passing the drill-down filters, or null when unfiltered
+    private GroupBy groupBy = GroupBy.DEPARTMENT_AVERAGE; // Chosen grouping, applied when the rows were kept
+    private List<File> loadedFiles = Collections.emptyList(); // Files of the current snapshot
+    private final RecentDatasets recentDatasets = new RecentDatasets(); // Loads to switch back to without parsing
+    private boolean updatingRecentBox; // Set while the recent datasets list is refilled
+    private FileFollower follower; // Follows the loaded file for appended rows, or null
+    private int followGeneration; // Bumped on every start/stop, so stale updates are dropped
+    private VBox metricsPane; // Overlay listing the last PipelineMetrics stages
+    private Label metricsText;
+    private final AtomicBoolean metricsRefreshPending = new AtomicBoolean(); // Coalesces refreshes
 
     // Panes for switching between home screen and app screen
     private StackPane rootPane;
@@ -72,23 +91,78 @@ public class DepartmentScoreAnalyzer extends Application {
     public void start(Stage primaryStage) {
         primaryStage.setTitle("Department Average Final Score Comparison");
 
-        // Create the root StackPane and initialize home and app panes
+        // Only the home screen is built before the first frame; the app pane, with
+        // its controls and export handlers, waits until Start is pressed
         rootPane = new StackPane();
-        createHomePane();
-        createAppPane(primaryStage);
-
-        // Show home screen initially
-        rootPane.getChildren().addAll(appPane, homePane);
-        appPane.setVisible(false);
+        createHomePane(primaryStage);
+        rootPane.getChildren().add(homePane);
         homePane.setVisible(true);
 
         Scene scene = new Scene(rootPane, 1000, 700);
         primaryStage.setScene(scene);
         primaryStage.show();
+
+        String probe = System.getProperty("departmentscore.startupProbe");
+        if (probe != null) {
+            probeStartup(scene, primaryStage, probe.equals("app"));
+        }
+    }
+
+    // Builds the app pane, under the home pane, unless that was done already.
+    private void ensureAppPane(Stage primaryStage) {
+        if (appPane != null) {
+            return;
+        }
+        createAppPane(primaryStage);
+        appPane.setVisible(false);
+        rootPane.getChildren().add(0, appPane);
+        rootPane.getChildren().add(metricsPane);
+    }
+
+    // Startup measurement (StartupBenchmark) and AppCDS training (cds-archive.sh):
+    // prints FIRST_FRAME_MARKER once the first frame has been laid out and exits.
+    // With showApp the app pane is built and laid out first, as after Start.
+    private void probeStartup(Scene scene, Stage primaryStage, boolean showApp) {
+        scene.addPostLayoutPulseListener(new Runnable() {
+            private boolean appShown = !showApp;
+
+            @Override
+            public void run() {
+                if (!appShown) {
+                    appShown = true;
+                    ensureAppPane(primaryStage);
+                    homePane.setVisible(false);
+                    appPane.setVisible(true);
+                    return; // laid out in the next pulse
+                }
+                scene.removePostLayoutPulseListener(this);
+                Platform.runLater(() -> {
+                    System.out.println(FIRST_FRAME_MARKER);
+                    Platform.exit();
+                });
+            }
+        });
+    }
+
+    private ExecutorService exportExecutor() {
+        if (exportExecutor == null) {
+            exportExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "image-export");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return exportExecutor;
+    }
+
+    @Override
+    public void stop() {
+        PipelineMetrics.setListener(null);
+        stopFollowing();
     }
 
     // Creates the home screen pane with a title, author info, and a start button.
-    private void createHomePane() {
+    private void createHomePane(Stage primaryStage) {
         homePane = new VBox(20);
         homePane.setAlignment(Pos.CENTER);
         homePane.setPadding(new Insets(20));
@@ -115,6 +189,7 @@ public class DepartmentScoreAnalyzer extends Application {
         
         // Scale animation for visual feedback
         startButton.setOnAction(e -> {
+            ensureAppPane(primaryStage);
             ScaleTransition scale = new ScaleTransition(Duration.millis(150), startButton);
             scale.setFromX(1.0);
             scale.setFromY(1.0);
@@ -154,16 +229,18 @@ public class DepartmentScoreAnalyzer extends Application {
         legendBox.setPadding(new Insets(15));
         legendBox.setStyle("-fx-border-color: gray; -fx-border-width: 1; " +
                            "-fx-background-color: rgba(255,255,255,0.9);");
-        appPane.setRight(legendBox);
 
         // Create control buttons with animations
-        Button loadButton = createAnimatedButton("📂 Load CSV File");
+        Button loadButton = createAnimatedButton("📂 Load CSV Files");
+        Button loadFolderButton = createAnimatedButton("📁 Load Folder");
         Button exportCSVButton = createAnimatedButton("💾 Export CSV");
         exportCSVButton.setDisable(true);
         Button exportPNGButton = createAnimatedButton("🖼️ Export PNG");
         exportPNGButton.setDisable(true);
         Button exportPDFButton = createAnimatedButton("📄 Export PDF");
         exportPDFButton.setDisable(true);
+        Button exportReportButton = createAnimatedButton("📑 Export Report");
+        exportReportButton.setDisable(true);
 
         // Labels for file status and summary information
         final Label fileLabel = new Label("No file loaded yet.");
@@ -173,18 +250,339 @@ public class DepartmentScoreAnalyzer extends Application {
         summaryLabel.setFont(Font.font("Comic Neue", 14));
         summaryLabel.setStyle("-fx-text-fill: #4a2c2a;");
 
+        // Progress bar and cancel button, shown only while a load is running
+        ProgressBar progressBar = new ProgressBar(0);
+        progressBar.setPrefWidth(400);
+        Button cancelLoadButton = createAnimatedButton("✖ Cancel");
+        HBox progressBox = new HBox(20, progressBar, cancelLoadButton);
+        progressBox.setAlignment(Pos.CENTER);
+        progressBox.setVisible(false);
+        progressBox.setManaged(false);
+        cancelLoadButton.setOnAction(e -> {
+            if (currentLoad != null) {
+                currentLoad.cancel();
+            }
+        });
+
+        // Detaches the progress controls from the running load
+        Runnable endLoad = () -> {
+            currentLoad = null;
+            progressBar.progressProperty().unbind();
+            fileLabel.textProperty().unbind();
+            progressBox.setVisible(false);
+            progressBox.setManaged(false);
+            loadButton.setDisable(false);
+            loadFolderButton.setDisable(false);
+        };
+
+        // Grouping controls: measure, up to two key columns and the aggregate. They
+        // regroup the kept rows without reading the file again.
+        ChoiceBox<Column> measureBox = new ChoiceBox<>();
+        ChoiceBox<Column> firstKeyBox = new ChoiceBox<>();
+        ChoiceBox<Column> secondKeyBox = new ChoiceBox<>();
+        ChoiceBox<AggregateFunction> functionBox = new ChoiceBox<>();
+        secondKeyBox.getItems().add(null);
+        for (Column column : Column.values()) {
+            if (column.isCategorical()) {
+                firstKeyBox.getItems().add(column);
+                secondKeyBox.getItems().add(column);
+            } else {
+                measureBox.getItems().add(column);
+            }
+        }
+        secondKeyBox.setConverter(new StringConverter<Column>() {
+            @Override
+            public String toString(Column column) {
+                return column == null ? "(none)" : column.toString();
+            }
+
+            @Override
+            public Column fromString(String text) {
+                return null;
+            }
+        });
+        functionBox.getItems().addAll(AggregateFunction.values());
+        measureBox.setValue(groupBy.getMeasure());
+        firstKeyBox.setValue(groupBy.getKeys().get(0));
+        secondKeyBox.setValue(null);
+        functionBox.setValue(groupBy.getFunction());
+        Label groupLabel = new Label("Group by");
+        groupLabel.setFont(Font.font("Comic Neue", 14));
+        groupLabel.setStyle("-fx-text-fill: #4a2c2a;");
+        Label groupHint = new Label("Load with \"Keep all rows\" to regroup");
+        groupHint.setFont(Font.font("Comic Neue", 12));
+        groupHint.setStyle("-fx-text-fill: #4a2c2a;");
+        VBox groupBox = new VBox(5, groupLabel, firstKeyBox, secondKeyBox, measureBox, functionBox, groupHint);
+        for (ChoiceBox<?> box : Arrays.asList(measureBox, firstKeyBox, secondKeyBox, functionBox)) {
+            box.setPrefWidth(200);
+        }
+        groupBox.setAlignment(Pos.CENTER);
+        groupBox.setDisable(true);
+        groupHint.setVisible(false);
+
+        // Drill-down filters over the kept rows, evaluated on the table's bitmap indexes
+        ChoiceBox<Column> filterColumnBox = new ChoiceBox<>();
+        ChoiceBox<String> filterValueBox = new ChoiceBox<>();
+        ChoiceBox<String> filterMinBox = new ChoiceBox<>();
+        filterMinBox.getItems().addAll(">=", ">");
+        filterMinBox.setValue(">=");
+        TextField filterMinField = new TextField();
+        filterMinField.setPromptText("min");
+        filterMinField.setPrefWidth(140);
+        ChoiceBox<String> filterMaxBox = new ChoiceBox<>();
+        filterMaxBox.getItems().addAll("<=", "<");
+        filterMaxBox.setValue("<=");
+        TextField filterMaxField = new TextField();
+        filterMaxField.setPromptText("max");
+        filterMaxField.setPrefWidth(140);
+        for (ChoiceBox<String> box : Arrays.asList(filterMinBox, filterMaxBox)) {
+            box.setPrefWidth(55);
+        }
+        VBox filterRangeBox = new VBox(5, new HBox(5, filterMinBox, filterMinField),
+                new HBox(5, filterMaxBox, filterMaxField));
+        filterColumnBox.setPrefWidth(200);
+        filterValueBox.setPrefWidth(200);
+        Button addFilterButton = createAnimatedButton("➕ Add Filter");
+        Button clearFiltersButton = createAnimatedButton("🧹 Clear Filters");
+        ListView<RowFilter> filterList = new ListView<>();
+        filterList.setPrefSize(200, 110);
+        filterList.setTooltip(new Tooltip("Double-click a filter to remove it"));
+        Label filterLabel = new Label("Filters");
+        filterLabel.setFont(Font.font("Comic Neue", FontWeight.BOLD, 14));
+        filterLabel.setStyle("-fx-text-fill: black;");
+        Label filterStatus = new Label();
+        filterStatus.setFont(Font.font("Comic Neue", 12));
+        filterStatus.setStyle("-fx-text-fill: black;");
+        VBox filterBox = new VBox(8, filterLabel, filterColumnBox, filterValueBox, filterRangeBox,
+                                  addFilterButton, filterList, clearFiltersButton, filterStatus);
+        filterBox.setPadding(new Insets(15));
+        filterBox.setStyle("-fx-border-color: gray; -fx-border-width: 1; " +
+                           "-fx-background-color: rgba(255,255,255,0.9);");
+        filterBox.setDisable(true);
+        appPane.setRight(new VBox(15, legendBox, filterBox));
+
+        // Shows the value choice for a categorical column, min/max fields for a numeric one
+        filterColumnBox.setOnAction(e -> {
+            Column column = filterColumnBox.getValue();
+            StudentTable table = snapshot == null ? null : snapshot.getTable();
+            boolean categorical = column != null && column.isCategorical();
+            filterValueBox.getItems().clear();
+            if (categorical && table != null) {
+                CategoryDictionary dictionary = table.dictionary(column);
+                for (int code = 0; code < dictionary.size(); code++) {
+                    filterValueBox.getItems().add(dictionary.decode(code));
+                }
+                filterValueBox.getItems().add(GroupBy.MISSING);
+                filterValueBox.setValue(filterValueBox.getItems().get(0));
+            }
+            filterValueBox.setVisible(categorical);
+            filterValueBox.setManaged(categorical);
+            filterRangeBox.setVisible(!categorical);
+            filterRangeBox.setManaged(!categorical);
+        });
+
+        // Enables the grouping and filter controls when the current snapshot kept its rows
+        Runnable updateTableControls = () -> {
+            StudentTable table = snapshot == null ? null : snapshot.getTable();
+            boolean rowsKept = table != null;
+            groupBox.setDisable(!rowsKept || boxPlot);
+            groupHint.setVisible(snapshot != null && !rowsKept);
+            filterBox.setDisable(!rowsKept);
+            if (!rowsKept) {
+                filterStatus.setText(snapshot == null ? "" : "Load with \"Keep all rows\" to filter");
+                return;
+            }
+            int selected = filterRows == null ? table.getRowCount() : filterRows.cardinality();
+            filterStatus.setText(String.format("%,d of %,d rows", selected, table.getRowCount()));
+        };
+
+        // Forgets the filters of a previous dataset and lists the columns of the current one
+        Runnable resetFilters = () -> {
+            filterRows = null;
+            filterList.getItems().clear();
+            filterColumnBox.getItems().clear();
+            StudentTable table = snapshot == null ? null : snapshot.getTable();
+            if (table != null) {
+                for (Column column : Column.values()) {
+                    if (table.has(column)) {
+                        filterColumnBox.getItems().add(column);
+                    }
+                }
+                filterColumnBox.setValue(filterColumnBox.getItems().get(0));
+            }
+        };
+
+        // Recomputes the selected rows from the filter list and redraws
+        Runnable applyFilters = () -> {
+            StudentTable table = snapshot == null ? null : snapshot.getTable();
+            if (table == null) {
+                return;
+            }
+            filterRows = filterList.getItems().isEmpty()
+                ? null
+                : RowFilter.selectAll(filterList.getItems(), table.index());
+            updateTableControls.run();
+            chartValues = groupedValues();
+            showChart();
+            updateLegend(chartValues);
+            updateSummary(summaryLabel, chartValues);
+        };
+
+        addFilterButton.setOnAction(e -> {
+            Column column = filterColumnBox.getValue();
+            if (column == null) {
+                return;
+            }
+            RowFilter filter;
+            try {
+                if (column.isCategorical()) {
+                    filter = RowFilter.oneOf(column, Collections.singletonList(filterValueBox.getValue()));
+                } else {
+                    double min = bound(filterMinField.getText(), Double.NEGATIVE_INFINITY);
+                    double max = bound(filterMaxField.getText(), Double.POSITIVE_INFINITY);
+                    filter = RowFilter.between(column, min, filterMinBox.getValue().equals(">="),
+                            max, filterMaxBox.getValue().equals("<="));
+                }
+            } catch (IllegalArgumentException ex) {
+                showAlert("Error", ex.getMessage());
+                return;
+            }
+            filterList.getItems().add(filter);
+            applyFilters.run();
+        });
+        clearFiltersButton.setOnAction(e -> {
+            filterList.getItems().clear();
+            applyFilters.run();
+        });
+        filterList.setOnMouseClicked(e -> {
+            int index = filterList.getSelectionModel().getSelectedIndex();
+            if (e.getClickCount() == 2 && index >= 0) {
+                filterList.getItems().remove(index);
+                applyFilters.run();
+            }
+        });
+
+        EventHandler<ActionEvent> regroup = e -> {
+            List<Column> keys = new ArrayList<>();
+            keys.add(firstKeyBox.getValue());
+            if (secondKeyBox.getValue() != null && secondKeyBox.getValue() != firstKeyBox.getValue()) {
+                keys.add(secondKeyBox.getValue());
+            }
+            groupBy = new GroupBy(measureBox.getValue(), keys, functionBox.getValue());
+            if (snapshot == null) {
+                return;
+            }
+            try {
+                chartValues = groupedValues();
+            } catch (IllegalArgumentException ex) {
+                showAlert("Error", ex.getMessage());
+                return;
+            }
+            showChart();
+            updateLegend(chartValues);
+            updateSummary(summaryLabel, chartValues);
+        };
+        measureBox.setOnAction(regroup);
+        firstKeyBox.setOnAction(regroup);
+        secondKeyBox.setOnAction(regroup);
+        functionBox.setOnAction(regroup);
+
+        // Follows a single loaded file, applying appended rows to the chart in place
+        CheckBox followBox = new CheckBox("Follow file (live)");
+        followBox.setFont(Font.font("Comic Neue", 14));
+        followBox.setStyle("-fx-text-fill: #4a2c2a;");
+        followBox.setDisable(true);
+        followBox.setOnAction(e -> {
+            stopFollowing();
+            if (!followBox.isSelected() || loadedFiles.size() != 1) {
+                return;
+            }
+            File file = loadedFiles.get(0);
+            int generation = followGeneration;
+            try {
+                follower = FileFollower.start(file, new FileFollower.Listener() {
+                    @Override
+                    public void updated(DatasetSnapshot update, long newRows) {
+                        Platform.runLater(() -> {
+                            if (generation != followGeneration) {
+                                return; // stopped meanwhile
+                            }
+                            snapshot = update;
+                            boolean sameDepartments = chartValues != null
+                                && chartValues.keySet().equals(update.getDepartmentAverages().keySet());
+                            chartValues = update.getDepartmentAverages();
+                            updateTableControls.run();
+                            showChart();
+                            if (!sameDepartments) {
+                                updateLegend(chartValues);
+                            }
+                            summaryLabel.setText(summaryText(activeGroupBy(), chartValues));
+                            fileLabel.setText(String.format("Following file: %s (%+,d rows)", file.getName(), newRows));
+                            fileLabel.setTooltip(diagnosticsTooltip(update));
+                        });
+                    }
+
+                    @Override
+                    public void failed(IOException ex) {
+                        Platform.runLater(() -> {
+                            if (generation != followGeneration) {
+                                return;
+                            }
+                            stopFollowing();
+                            followBox.setSelected(false);
+                            showAlert("Error", "Stopped following " + file.getName() + ": " + ex.getMessage());
+                        });
+                    }
+                });
+            } catch (IOException ex) {
+                followBox.setSelected(false);
+                showAlert("Error", "Cannot follow " + file.getName() + ": " + ex.getMessage());
+            }
+        });
+
+        // Recently loaded datasets, switched to without a file chooser or a parse
+        ChoiceBox<RecentDatasets.Entry> recentBox = new ChoiceBox<>();
+        recentBox.setPrefWidth(200);
+        recentBox.setDisable(true);
+        Label recentLabel = new Label("Recent datasets");
+        recentLabel.setFont(Font.font("Comic Neue", 14));
+        recentLabel.setStyle("-fx-text-fill: #4a2c2a;");
+
+        // Lists the cached loads, most recent first, with the shown one selected
+        Runnable updateRecentBox = () -> {
+            updatingRecentBox = true;
+            recentBox.getItems().setAll(recentDatasets.entries());
+            recentBox.setValue(recentBox.getItems().stream()
+                .filter(entry -> entry.snapshot == snapshot).findFirst().orElse(null));
+            recentBox.setDisable(recentBox.getItems().isEmpty());
+            updatingRecentBox = false;
+        };
+
         // Reset button clears data and transitions back to the home screen
         Button resetButton = createAnimatedButton("🔄 Reset");
         resetButton.setOnAction(e -> {
-            students.clear();
-            departmentAverages = null;
+            if (currentLoad != null) {
+                currentLoad.cancel();
+                endLoad.run();
+            }
+            stopFollowing();
+            followBox.setSelected(false);
+            followBox.setDisable(true);
+            snapshot = null;
+            loadedFiles = Collections.emptyList();
+            chartValues = null;
+            updateRecentBox.run(); // the recent datasets stay cached
+            resetFilters.run();
+            updateTableControls.run();
             chart = null;
             legendBox.getChildren().clear();
             appPane.setCenter(null);
             exportCSVButton.setDisable(true);
             exportPNGButton.setDisable(true);
             exportPDFButton.setDisable(true);
+            exportReportButton.setDisable(true);
             fileLabel.setText("No file loaded yet.");
+            fileLabel.setTooltip(null);
             summaryLabel.setText("Load a CSV file to see results");
             FadeTransition fadeOut = new FadeTransition(Duration.millis(500), appPane);
             fadeOut.setFromValue(1.0);
@@ -206,46 +604,233 @@ public class DepartmentScoreAnalyzer extends Application {
         toggleOrientationButton.setDisable(true);
         toggleOrientationButton.setOnAction(e -> {
             isVerticalChart = !isVerticalChart;
-            chart = createChart(isVerticalChart, departmentAverages);
-            appPane.setCenter(chart);
+            showChart();
+        });
+
+        // Shows each file of a multi-file load as its own series
+        CheckBox perFileBox = new CheckBox("One series per file");
+        perFileBox.setFont(Font.font("Comic Neue", 14));
+        perFileBox.setStyle("-fx-text-fill: #4a2c2a;");
+        perFileBox.setOnAction(e -> {
+            perFileSeries = perFileBox.isSelected();
+            if (chartValues != null) {
+                showChart();
+            }
         });
 
         VBox bottomBox = new VBox(15);
         bottomBox.setPadding(new Insets(15));
         bottomBox.setAlignment(Pos.CENTER);
-        bottomBox.getChildren().add(loadButton);
-        HBox exportButtonBox = new HBox(20, exportCSVButton, exportPNGButton, exportPDFButton);
+        HBox loadButtonBox = new HBox(20, loadButton, loadFolderButton);
+        loadButtonBox.setAlignment(Pos.CENTER);
+        bottomBox.getChildren().add(loadButtonBox);
+        HBox exportButtonBox = new HBox(20, exportCSVButton, exportPNGButton, exportPDFButton,
+                exportReportButton);
         exportButtonBox.setAlignment(Pos.CENTER);
-        bottomBox.getChildren().addAll(exportButtonBox, fileLabel, summaryLabel, resetButton);
+        bottomBox.getChildren().addAll(progressBox, exportButtonBox, fileLabel, summaryLabel, resetButton);
         appPane.setBottom(bottomBox);
 
-        VBox leftBox = new VBox(toggleOrientationButton);
+        // Load mode: keep rows, stream into accumulators, or parse in parallel
+        ChoiceBox<LoadMode> loadModeBox = new ChoiceBox<>();
+        loadModeBox.getItems().addAll(LoadMode.values());
+        loadModeBox.setValue(LoadMode.AUTO);
+        loadModeBox.setPrefWidth(200);
+        Label loadModeLabel = new Label("Load mode");
+        loadModeLabel.setFont(Font.font("Comic Neue", 14));
+        loadModeLabel.setStyle("-fx-text-fill: #4a2c2a;");
+
+        // Switches between the average bars and the box plot of score quantiles
+        CheckBox boxPlotBox = new CheckBox("Box plot");
+        boxPlotBox.setFont(Font.font("Comic Neue", 14));
+        boxPlotBox.setStyle("-fx-text-fill: #4a2c2a;");
+        boxPlotBox.setOnAction(e -> {
+            boxPlot = boxPlotBox.isSelected();
+            updateTableControls.run();
+            if (chartValues != null) {
+                toggleOrientationButton.setDisable(boxPlot);
+                showChart();
+            }
+        });
+
+        // Overlay with the duration, rows/s, bytes and allocation of recent stages
+        metricsText = new Label();
+        metricsText.setFont(Font.font("Monospaced", 11));
+        metricsText.setStyle("-fx-text-fill: white;");
+        Label metricsTitle = new Label("Pipeline metrics (latest first)");
+        metricsTitle.setFont(Font.font("Comic Neue", FontWeight.BOLD, 12));
+        metricsTitle.setStyle("-fx-text-fill: white;");
+        metricsPane = new VBox(5, metricsTitle, metricsText);
+        metricsPane.setPadding(new Insets(10));
+        metricsPane.setMaxSize(Region.USE_PREF_SIZE, Region.USE_PREF_SIZE);
+        metricsPane.setStyle("-fx-background-color: rgba(0,0,0,0.7); -fx-background-radius: 8;");
+        metricsPane.setMouseTransparent(true);
+        metricsPane.setVisible(false);
+        StackPane.setAlignment(metricsPane, Pos.BOTTOM_LEFT);
+        StackPane.setMargin(metricsPane, new Insets(0, 0, 90, 240));
+        CheckBox metricsBox = new CheckBox("Show metrics");
+        metricsBox.setFont(Font.font("Comic Neue", 14));
+        metricsBox.setStyle("-fx-text-fill: #4a2c2a;");
+        metricsBox.setOnAction(e -> {
+            metricsPane.setVisible(metricsBox.isSelected());
+            PipelineMetrics.setListener(metricsBox.isSelected() ? this::requestMetricsRefresh : null);
+            refreshMetrics();
+        });
+
+        // Resolution of exported chart images
+        ChoiceBox<Integer> exportScaleBox = new ChoiceBox<>();
+        exportScaleBox.getItems().addAll(1, 2, 4);
+        exportScaleBox.setValue(exportScale);
+        exportScaleBox.setPrefWidth(200);
+        exportScaleBox.setConverter(new StringConverter<Integer>() {
+            @Override
+            public String toString(Integer scale) {
+                return scale == null ? "" : scale + "x";
+            }
+
+            @Override
+            public Integer fromString(String text) {
+                return Integer.valueOf(text.replace("x", ""));
+            }
+        });
+        exportScaleBox.setOnAction(e -> exportScale = exportScaleBox.getValue());
+        Label exportScaleLabel = new Label("Image export scale");
+        exportScaleLabel.setFont(Font.font("Comic Neue", 14));
+        exportScaleLabel.setStyle("-fx-text-fill: #4a2c2a;");
+
+        VBox leftBox = new VBox(15, toggleOrientationButton, perFileBox, boxPlotBox, followBox, metricsBox,
+                                loadModeLabel, loadModeBox, recentLabel, recentBox, exportScaleLabel, exportScaleBox,
+                                groupBox);
         leftBox.setPadding(new Insets(15));
         leftBox.setAlignment(Pos.CENTER);
         appPane.setLeft(leftBox);
 
-        // Load CSV action - opens a file chooser and processes the file
+        // Shows a completed or cached load
+        BiConsumer<DatasetSnapshot, List<File>> showLoaded = (loaded, files) -> {
+            snapshot = loaded;
+            loadedFiles = files;
+            resetFilters.run();
+            updateTableControls.run();
+            try {
+                chartValues = groupedValues();
+            } catch (IllegalArgumentException ex) {
+                groupBy = GroupBy.DEPARTMENT_AVERAGE;
+                chartValues = snapshot.getDepartmentAverages();
+            }
+            showChart();
+            updateLegend(chartValues);
+            updateSummary(summaryLabel, chartValues);
+            fileLabel.setText(loadedText(snapshot));
+            fileLabel.setTooltip(diagnosticsTooltip(snapshot));
+            exportCSVButton.setDisable(false);
+            exportPNGButton.setDisable(false);
+            exportPDFButton.setDisable(false);
+            exportReportButton.setDisable(false);
+            toggleOrientationButton.setDisable(boxPlot);
+            followBox.setDisable(loadedFiles.size() != 1);
+            updateRecentBox.run();
+        };
+
+        // Switches to a cached load, stopping whatever load or follow is running
+        Consumer<RecentDatasets.Entry> showRecent = entry -> {
+            if (currentLoad != null) {
+                currentLoad.cancel();
+                endLoad.run();
+            }
+            stopFollowing();
+            followBox.setSelected(false);
+            showLoaded.accept(entry.snapshot, entry.files);
+        };
+
+        // Loads the chosen files in the background and shows the merged result;
+        // files loaded before in the same mode and unchanged since are shown from recentDatasets
+        BiConsumer<List<File>, LoadMode> startLoad = (files, mode) -> {
+            String recentKey = RecentDatasets.key(files, mode); // before parsing, see RecentDatasets.key
+            RecentDatasets.Entry recent = recentDatasets.get(recentKey);
+            if (recent != null) {
+                showRecent.accept(recent);
+                return;
+            }
+            // Parse on a background thread; handlers below run on the FX thread
+            LoadTask task = new LoadTask(files, mode);
+            currentLoad = task;
+            stopFollowing();
+            followBox.setSelected(false);
+            followBox.setDisable(true);
+            loadButton.setDisable(true);
+            loadFolderButton.setDisable(true);
+            progressBar.progressProperty().bind(task.progressProperty());
+            fileLabel.textProperty().bind(task.messageProperty());
+            progressBox.setVisible(true);
+            progressBox.setManaged(true);
+
+            task.setOnSucceeded(ev -> {
+                if (task != currentLoad) {
+                    return; // superseded by Reset
+                }
+                endLoad.run();
+                recentDatasets.put(recentKey, task.getFiles(), mode, task.getValue());
+                showLoaded.accept(task.getValue(), task.getFiles());
+            });
+            task.setOnFailed(ev -> {
+                if (task != currentLoad) {
+                    return;
+                }
+                endLoad.run();
+                followBox.setDisable(loadedFiles.size() != 1);
+                fileLabel.setText(snapshot == null ? "No file loaded yet." : loadedText(snapshot));
+                // Alert the user with a descriptive message if CSV loading fails
+                showAlert("Error", "Error loading CSV file: " + task.getException().getMessage());
+            });
+            task.setOnCancelled(ev -> {
+                if (task != currentLoad) {
+                    return;
+                }
+                endLoad.run();
+                followBox.setDisable(loadedFiles.size() != 1);
+                fileLabel.setText("Load of " + task.getName() + " cancelled.");
+            });
+            loadExecutor.execute(task);
+        };
+
+        recentBox.setOnAction(e -> {
+            RecentDatasets.Entry entry = recentBox.getValue();
+            if (updatingRecentBox || entry == null || entry.snapshot == snapshot) {
+                return;
+            }
+            if (entry.isCurrent()) {
+                showRecent.accept(entry);
+            } else {
+                // Changed on disk since it was cached: load it again
+                recentDatasets.remove(entry.key);
+                updateRecentBox.run();
+                startLoad.accept(entry.files, entry.mode);
+            }
+        });
+
+        // Load CSV action - opens a file chooser (several files may be selected) and processes them
         loadButton.setOnAction(e -> {
             FileChooser fileChooser = new FileChooser();
-            fileChooser.setTitle("Open CSV File");
-            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
-            File file = fileChooser.showOpenDialog(primaryStage);
-            if (file != null) {
-                try {
-                    loadData(file.getAbsolutePath());
-                    departmentAverages = calculateDepartmentAverages();
-                    chart = createChart(isVerticalChart, departmentAverages);
-                    appPane.setCenter(chart);
-                    updateLegend(departmentAverages);
-                    updateSummary(summaryLabel, departmentAverages);
-                    fileLabel.setText("Loaded file: " + file.getName());
-                    exportCSVButton.setDisable(false);
-                    exportPNGButton.setDisable(false);
-                    exportPDFButton.setDisable(false);
-                    toggleOrientationButton.setDisable(false);
-                } catch (IOException ex) {
-                    // Alert the user with a descriptive message if CSV loading fails
-                    showAlert("Error", "Error loading CSV file: " + ex.getMessage());
+            fileChooser.setTitle("Open CSV Files");
+            fileChooser.getExtensionFilters().add(
+                    new FileChooser.ExtensionFilter("CSV Files (also .gz, .zip)", CompressedInput.PATTERNS));
+            List<File> files = fileChooser.showOpenMultipleDialog(primaryStage);
+            if (files != null && !files.isEmpty()) {
+                startLoad.accept(files, loadModeBox.getValue());
+            }
+        });
+
+        // Load folder action - processes every CSV file in a directory
+        loadFolderButton.setOnAction(e -> {
+            DirectoryChooser directoryChooser = new DirectoryChooser();
+            directoryChooser.setTitle("Open Folder of CSV Files");
+            File directory = directoryChooser.showDialog(primaryStage);
+            if (directory != null) {
+                File[] files = directory.listFiles((dir, name) -> CompressedInput.isInputName(name));
+                if (files == null || files.length == 0) {
+                    showAlert("Error", "No CSV files found in " + directory.getName());
+                } else {
+                    Arrays.sort(files);
+                    startLoad.accept(Arrays.asList(files), loadModeBox.getValue());
                 }
             }
         });
@@ -257,13 +842,15 @@ public class DepartmentScoreAnalyzer extends Application {
             fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
             File file = fileChooser.showSaveDialog(primaryStage);
             if (file != null) {
-                exportData(file, departmentAverages);
+                GroupBy shown = activeGroupBy();
+                exportData(file, shown.categoryLabel(), shown.valueLabel(), chartValues);
             }
         });
 
         // Export PNG and PDF actions
         exportPNGButton.setOnAction(e -> exportChartAsPNG(primaryStage));
         exportPDFButton.setOnAction(e -> exportChartAsPDF(primaryStage));
+        exportReportButton.setOnAction(e -> exportReport(primaryStage));
     }
 
     // Creates an animated button with a scale effect on click
@@ -287,235 +874,109 @@ public class DepartmentScoreAnalyzer extends Application {
         return btn;
     }
 
-    // Creates and returns a BarChart with fade-in animations for both the chart and its bars.
-    private BarChart createChart(boolean isVertical, Map<String, Double> averages) {
-        BarChart chart;
-        double fixedBarWidth = 80;
-        double fixedBarHeight = 80;
-        double categoryGap = 50;
-        int count = averages.size();
-
-        if (isVertical) {
-            // For vertical charts, if only one department exists, use a natural width; otherwise, calculate normally.
-            double computedWidth = (count == 1) 
-                ? fixedBarWidth + 2 * categoryGap  // e.g. 80 + 100 = 180 pixels
-                : count * fixedBarWidth + (count + 1) * categoryGap;
-            
-            CategoryAxis xAxis = new CategoryAxis();
-            NumberAxis yAxis = new NumberAxis();
-            xAxis.setLabel("Department");
-            yAxis.setLabel("Average Final Score");
-            chart = new BarChart<>(xAxis, yAxis);
-            XYChart.Series<String, Number> series = new XYChart.Series<>();
-            for (Map.Entry<String, Double> entry : averages.entrySet()) {
-                series.getData().add(new XYChart.Data<>(entry.getKey(), entry.getValue()));
-            }
-            chart.getData().add(series);
-
-            FadeTransition ft = new FadeTransition(Duration.millis(800), chart);
-            ft.setFromValue(0.0);
-            ft.setToValue(1.0);
-            ft.play();
-
-            // Run styling and animations on the JavaFX thread
-            Platform.runLater(() -> {
-                chart.lookupAll(".axis-line").forEach(n -> n.setStyle("-fx-stroke: black;"));
-                chart.lookupAll(".chart-horizontal-grid-lines").forEach(n -> n.setStyle("-fx-stroke: black;"));
-                chart.lookupAll(".chart-vertical-grid-lines").forEach(n -> n.setStyle("-fx-stroke: black;"));
-                chart.lookupAll(".axis-label").forEach(n -> n.setStyle("-fx-text-fill: black; -fx-font-size: 16px;"));
-                chart.lookupAll(".tick-label").forEach(n -> n.setStyle("-fx-text-fill: black; -fx-font-size: 16px;"));
-
-                // Animate each bar and add data labels with modifications for vertical charts
-                for (XYChart.Data<String, Number> data : series.getData()) {
-                    String color = getDepartmentColor(data.getXValue());
-                    if (data.getNode() != null) {
-                        data.getNode().setStyle("-fx-bar-fill: " + color + ";");
-                        FadeTransition barFade = new FadeTransition(Duration.millis(600), data.getNode());
-                        barFade.setFromValue(0.0);
-                        barFade.setToValue(1.0);
-                        barFade.play();
-                        if (data.getNode() instanceof StackPane) {
-                            StackPane stackPane = (StackPane) data.getNode();
-                            // Use a smaller font for vertical labels
-                            Label label = new Label(String.format("%.2f", data.getYValue()));
-                            label.setFont(Font.font("Comic Neue", FontWeight.BOLD, 12));
-                            label.setTextFill(Color.BLACK);
-                            // Position the label at the bottom center of the bar
-                            stackPane.getChildren().add(label);
-                            StackPane.setAlignment(label, Pos.BOTTOM_CENTER);
-                        }
-                    }
-                }
-            });
-            chart.setMinWidth(computedWidth);
-            chart.setPrefWidth(computedWidth);
-            chart.setMaxWidth(computedWidth);
-        } else {
-            // For horizontal charts, if only one department exists, increase the height for better visibility.
-            double computedHeight = (count == 1)
-                ? fixedBarHeight + 4 * categoryGap  // e.g. 80 + 200 = 280 pixels
-                : count * fixedBarHeight + (count + 1) * categoryGap;
-            
-            NumberAxis xAxis = new NumberAxis();
-            CategoryAxis yAxis = new CategoryAxis();
-            xAxis.setLabel("Average Final Score");
-            yAxis.setLabel("Department");
-            chart = new BarChart<>(xAxis, yAxis);
-            XYChart.Series<Number, String> series = new XYChart.Series<>();
-            for (Map.Entry<String, Double> entry : averages.entrySet()) {
-                series.getData().add(new XYChart.Data<>(entry.getValue(), entry.getKey()));
-            }
-            chart.getData().add(series);
-
-            FadeTransition ft = new FadeTransition(Duration.millis(800), chart);
-            ft.setFromValue(0.0);
-            ft.setToValue(1.0);
-            ft.play();
+    // Shows the current averages in the chart of the current orientation, reusing its bars,
+    // or the box plot of the current department stats.
+    // Measured as the chart stage; layout and painting follow in the next pulse.
+    private void showChart() {
+        PipelineMetrics.Span span = PipelineMetrics.begin(PipelineMetrics.Stage.CHART,
+                boxPlot ? "Box plot" : activeGroupBy().title());
+        chart = boxPlot
+            ? departmentChart.showBoxPlot(snapshot.getDepartmentAverages(), boxPlotStats())
+            : departmentChart.show(isVerticalChart, activeGroupBy(), chartValues, chartSeries());
+        appPane.setCenter(chart);
+        span.end(0, boxPlot ? snapshot.getDepartmentStats().size() : chartValues.size(), 0);
+    }
 
-            Platform.runLater(() -> {
-                chart.lookupAll(".axis-line").forEach(n -> n.setStyle("-fx-stroke: black;"));
-                chart.lookupAll(".chart-horizontal-grid-lines").forEach(n -> n.setStyle("-fx-stroke: black;"));
-                chart.lookupAll(".chart-vertical-grid-lines").forEach(n -> n.setStyle("-fx-stroke: black;"));
-                chart.lookupAll(".axis-label").forEach(n -> n.setStyle("-fx-text-fill: black; -fx-font-size: 16px;"));
-                chart.lookupAll(".tick-label").forEach(n -> n.setStyle("-fx-text-fill: black; -fx-font-size: 16px;"));
-
-                // Animate each bar and add data labels with padding to prevent clipping
-                for (XYChart.Data<Number, String> data : series.getData()) {
-                    String color = getDepartmentColor(data.getYValue());
-                    if (data.getNode() != null) {
-                        data.getNode().setStyle("-fx-bar-fill: " + color + ";");
-                        FadeTransition barFade = new FadeTransition(Duration.millis(600), data.getNode());
-                        barFade.setFromValue(0.0);
-                        barFade.setToValue(1.0);
-                        barFade.play();
-                        if (data.getNode() instanceof StackPane) {
-                            StackPane stackPane = (StackPane) data.getNode();
-                            Label label = new Label(String.format("%.2f", data.getXValue()));
-                            label.setFont(Font.font("Comic Neue", FontWeight.BOLD, 16));
-                            label.setTextFill(Color.BLACK);
-                            label.setPadding(new Insets(0, 5, 0, 5));
-                            stackPane.getChildren().add(label);
-                            StackPane.setAlignment(label, Pos.CENTER);
-                        }
-                    }
-                }
-            });
-            chart.setMinHeight(computedHeight);
-            chart.setPrefHeight(computedHeight);
-            chart.setMaxHeight(computedHeight);
-        }
+    // The chosen grouping if the current snapshot kept rows with its columns, else department averages.
+    private GroupBy activeGroupBy() {
+        StudentTable table = snapshot == null ? null : snapshot.getTable();
+        return table != null && groupBy.appliesTo(table) ? groupBy : GroupBy.DEPARTMENT_AVERAGE;
+    }
 
-        // Set common chart properties and style the title
-        chart.setTitle("Average Final Scores by Department");
-        Platform.runLater(() -> {
-            chart.lookupAll(".chart-title").forEach(n -> n.setStyle("-fx-text-fill: black; -fx-font-size: 20px;"));
-        });
-        chart.setAnimated(false);
-        chart.setLegendVisible(false);
-        chart.setCategoryGap(categoryGap);
-        chart.setBarGap(0);
-        BorderPane.setMargin(chart, new Insets(20));
-        return chart;
+    // Filtered rows of the current snapshot, or null when it is unfiltered or kept no rows.
+    private RowBitmap activeFilterRows() {
+        return snapshot != null && snapshot.getTable() != null ? filterRows : null;
     }
 
-    // Load and parse the CSV file line by line
-    private void loadData(String filePath) throws IOException {
-        students.clear();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            boolean isHeader = true;
-            int finalScoreIndex = -1;
-            int departmentIndex = -1;
-            while ((line = reader.readLine()) != null) {
-                if (isHeader) {
-                    String[] headers = line.split(",");
-                    for (int i = 0; i < headers.length; i++) {
-                        String header = headers[i].trim();
-                        if (header.equals("Final_Score")) {
-                            finalScoreIndex = i;
-                        } else if (header.equals("Department")) {
-                            departmentIndex = i;
-                        }
-                    }
-                    if (finalScoreIndex == -1 || departmentIndex == -1) {
-                        throw new IOException("CSV header missing 'Final_Score' or 'Department' columns.");
-                    }
-                    isHeader = false;
-                    continue;
-                }
-                try {
-                    Student student = parseStudent(line, departmentIndex, finalScoreIndex);
-                    if (student != null) {
-                        students.add(student);
-                    }
-                } catch (Exception e) {
-                    // Log parsing error; consider alerting if many errors occur
-                    System.err.println("Error parsing line: " + line);
-                    System.err.println("Error message: " + e.getMessage());
-                }
-            }
-        }
-        System.out.println("Loaded " + students.size() + " students.");
+    // Values of the active grouping over the active filter, measured as the aggregation stage.
+    private Map<String, Double> groupedValues() {
+        GroupBy shown = activeGroupBy();
+        RowBitmap rows = activeFilterRows();
+        PipelineMetrics.Span span = PipelineMetrics.begin(PipelineMetrics.Stage.AGGREGATE, shown.title());
+        Map<String, Double> values = shown.equals(GroupBy.DEPARTMENT_AVERAGE) && rows == null
+            ? snapshot.getDepartmentAverages()
+            : shown.apply(snapshot.getTable(), rows);
+        span.end(0, rows == null ? snapshot.getRowCount() : rows.cardinality(), 0);
+        return values;
     }
 
-    // Parse a CSV line into a Student object. Uses regex to handle commas in quotes.
-    private Student parseStudent(String line, int departmentIndex, int finalScoreIndex) {
-        String[] parts = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
-        if (parts.length <= Math.max(departmentIndex, finalScoreIndex)) {
-            System.err.println("Invalid line format (not enough fields): " + line);
-            return null;
+    // Parses a filter bound; blank means unbounded.
+    private static double bound(String text, double unbounded) {
+        if (text.isBlank()) {
+            return unbounded;
         }
         try {
-            String studentId = parts[0].trim();
-            String department = parts[departmentIndex].trim();
-            double finalScore = 0.0;
-            if (!parts[finalScoreIndex].trim().isEmpty()) {
-                try {
-                    finalScore = Double.parseDouble(parts[finalScoreIndex].trim());
-                } catch (NumberFormatException e) {
-                    System.err.println("Invalid final score: " + parts[finalScoreIndex]);
-                }
-            }
-            return new Student(studentId, department, finalScore);
-        } catch (Exception e) {
-            System.err.println("Error parsing student data: " + e.getMessage());
-            return null;
+            return Double.parseDouble(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + text.trim());
         }
     }
 
-    // Calculate department averages by grouping student scores
-    private Map<String, Double> calculateDepartmentAverages() {
-        Map<String, List<Double>> departmentScores = new HashMap<>();
-        for (Student student : students) {
-            departmentScores.computeIfAbsent(student.getDepartment(), k -> new ArrayList<>())
-                    .add(student.getFinalScore());
-        }
-        Map<String, Double> departmentAverages = new HashMap<>();
-        for (Map.Entry<String, List<Double>> entry : departmentScores.entrySet()) {
-            List<Double> scores = entry.getValue();
-            double sum = 0.0;
-            for (Double score : scores) {
-                sum += score;
+    private void stopFollowing() {
+        followGeneration++;
+        if (follower != null) {
+            try {
+                follower.close();
+            } catch (IOException e) {
+                // the follower thread ends either way
             }
-            double average = scores.isEmpty() ? 0.0 : sum / scores.size();
-            departmentAverages.put(entry.getKey(), average);
+            follower = null;
         }
-        return departmentAverages;
+    }
+
+    // Department score distributions for the box plot, over the filtered rows if any.
+    private Map<String, ScoreAccumulator> boxPlotStats() {
+        RowBitmap rows = activeFilterRows();
+        return rows == null ? snapshot.getDepartmentStats() : snapshot.getTable().departmentStats(rows);
+    }
+
+    // Per-file series to draw, or an empty list for a single merged series.
+    private List<DatasetSnapshot> chartSeries() {
+        boolean departmentAverages = activeGroupBy().equals(GroupBy.DEPARTMENT_AVERAGE) && activeFilterRows() == null;
+        return perFileSeries && departmentAverages && snapshot != null ? snapshot.getParts() : Collections.emptyList();
+    }
+
+    // Status line for a completed load
+    private static String loadedText(DatasetSnapshot snapshot) {
+        String text = snapshot.getParts().isEmpty()
+            ? "Loaded file: " + snapshot.getSourceName()
+            : "Loaded " + snapshot.getSourceName() + " (merged)";
+        long badRows = snapshot.getDiagnostics().getBadRows();
+        return badRows == 0 ? text : String.format("%s - %,d bad rows (hover for details)", text, badRows);
+    }
+
+    // Counts and first samples of the bad rows, or null for a clean load.
+    private static Tooltip diagnosticsTooltip(DatasetSnapshot snapshot) {
+        LoadDiagnostics diagnostics = snapshot.getDiagnostics();
+        return diagnostics.isClean() ? null : new Tooltip(diagnostics.details());
     }
 
     // Update the legend panel with colored boxes for each department
-    private void updateLegend(Map<String, Double> departmentAverages) {
+    private void updateLegend(Map<String, Double> values) {
+        PipelineMetrics.Span span = PipelineMetrics.begin(PipelineMetrics.Stage.LEGEND, values.size() + " groups");
         legendBox.getChildren().clear();
         Label legendTitle = new Label("Legend");
         legendTitle.setFont(Font.font("Comic Neue", FontWeight.BOLD, 14));
         legendTitle.setStyle("-fx-text-fill: black;");
         legendBox.getChildren().add(legendTitle);
-        for (String department : departmentAverages.keySet()) {
+        // With many groups there is one entry per color rather than per group
+        Map<String, String> entries = DepartmentColors.legend(values.keySet(), DepartmentChart.CANVAS_THRESHOLD);
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
             HBox legendItem = new HBox(10);
             Region colorBox = new Region();
             colorBox.setPrefSize(15, 15);
-            colorBox.setStyle("-fx-background-color: " + getDepartmentColor(department) + "; -fx-border-color: black;");
-            Label deptLabel = new Label(department);
+            colorBox.setStyle("-fx-background-color: " + entry.getValue() + "; -fx-border-color: black;");
+            Label deptLabel = new Label(entry.getKey());
             deptLabel.setFont(Font.font("Comic Neue", 12));
             deptLabel.setStyle("-fx-text-fill: black;");
             legendItem.getChildren().addAll(colorBox, deptLabel);
@@ -525,65 +986,89 @@ public class DepartmentScoreAnalyzer extends Application {
             ft.play();
             legendBox.getChildren().add(legendItem);
         }
+        span.end(0, entries.size(), 0);
     }
 
-    // Returns the color code for a given department
-    private String getDepartmentColor(String department) {
-        switch (department.trim()) {
-            case "CS":
-                return CS_COLOR;
-            case "Mathematics":
-                return MATHEMATICS_COLOR;
-            case "Engineering":
-                return ENGINEERING_COLOR;
-            case "Business":
-                return BUSINESS_COLOR;
-            default:
-                return "#808080";
+    // Called on whichever thread recorded a stage; at most one refresh is queued at a time.
+    private void requestMetricsRefresh() {
+        if (metricsRefreshPending.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                metricsRefreshPending.set(false);
+                refreshMetrics();
+            });
         }
     }
 
-    // Updates the summary label with department averages and animates the fade-in
-    private void updateSummary(Label summaryLabel, Map<String, Double> departmentAverages) {
-        StringBuilder summary = new StringBuilder("Summary of Average Final Scores by Department:\n\n");
-        for (Map.Entry<String, Double> entry : departmentAverages.entrySet()) {
-            summary.append(String.format("%s: %.2f\n", entry.getKey(), entry.getValue()));
+    private void refreshMetrics() {
+        if (!metricsPane.isVisible()) {
+            return;
+        }
+        List<PipelineMetrics.Record> records = PipelineMetrics.history();
+        StringBuilder text = new StringBuilder();
+        for (int i = records.size() - 1; i >= Math.max(0, records.size() - 12); i--) {
+            text.append(records.get(i)).append('\n');
         }
-        summaryLabel.setText(summary.toString());
+        metricsText.setText(text.length() == 0 ? "No stages recorded yet." : text.toString().trim());
+    }
+
+    // Updates the summary label with department averages and animates the fade-in
+    private void updateSummary(Label summaryLabel, Map<String, Double> values) {
+        summaryLabel.setText(summaryText(activeGroupBy(), values));
         FadeTransition ft = new FadeTransition(Duration.millis(500), summaryLabel);
         ft.setFromValue(0.0);
         ft.setToValue(1.0);
         ft.play();
     }
 
+    private static String summaryText(GroupBy groupBy, Map<String, Double> values) {
+        String title = groupBy.equals(GroupBy.DEPARTMENT_AVERAGE)
+            ? "Average Final Scores by Department"
+            : groupBy.title();
+        StringBuilder summary = new StringBuilder("Summary of " + title + ":\n\n");
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            summary.append(String.format("%s: %.2f\n", entry.getKey(), entry.getValue()));
+        }
+        return summary.toString();
+    }
+
     // Exports the department averages as a CSV file.
-    private void exportData(File file, Map<String, Double> departmentAverages) {
-        try (FileWriter writer = new FileWriter(file)) {
-            writer.write("Department,Average Final Score\n");
-            for (Map.Entry<String, Double> entry : departmentAverages.entrySet()) {
-                writer.write(String.format("%s,%.2f\n", entry.getKey(), entry.getValue()));
-            }
+    private void exportData(File file, String categoryHeader, String valueHeader, Map<String, Double> values) {
+        try {
+            AggregateExporter.writeCsv(file, categoryHeader, valueHeader, values);
             showAlert("Success", "Data exported successfully to " + file.getName());
         } catch (IOException e) {
             showAlert("Error", "Failed to export data: " + e.getMessage());
         }
     }
 
-    // Exports the chart as a PNG image.
+    // Exports the chart as a PNG image. The snapshot is taken here on the FX
+    // thread; conversion and encoding run on the export executor. A canvas chart
+    // only paints the bars in view, so it is drawn again in full with Java2D.
     private void exportChartAsPNG(Stage primaryStage) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Save Chart as PNG");
         fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PNG Files", "*.png"));
         File file = fileChooser.showSaveDialog(primaryStage);
         if (file != null) {
-            WritableImage snapshot = chart.snapshot(new SnapshotParameters(), null);
-            BufferedImage bufferedImage = SwingFXUtils.fromFXImage(snapshot, null);
-            try {
-                ImageIO.write(bufferedImage, "png", file);
-                showAlert("Success", "Chart exported successfully as PNG.");
-            } catch (IOException e) {
-                showAlert("Error", "Failed to export chart as PNG: " + e.getMessage());
-            }
+            WritableImage image = chart instanceof CanvasBarChart ? null : chartSnapshot();
+            GroupBy shown = activeGroupBy();
+            boolean departmentAverage = shown.equals(GroupBy.DEPARTMENT_AVERAGE);
+            Map<String, Double> values = chartValues;
+            boolean isVertical = isVerticalChart;
+            int scale = exportScale;
+            exportExecutor().execute(() -> {
+                try {
+                    AggregateExporter.writePng(image != null
+                        ? SwingFXUtils.fromFXImage(image, null)
+                        : ChartRenderer.render(departmentAverage ? ChartRenderer.TITLE : shown.title(),
+                                departmentAverage ? ChartRenderer.CATEGORY_LABEL : shown.categoryLabel(),
+                                departmentAverage ? ChartRenderer.VALUE_LABEL : shown.valueLabel(),
+                                values, isVertical, scale), file);
+                    Platform.runLater(() -> showAlert("Success", "Chart exported successfully as PNG."));
+                } catch (IOException | RuntimeException ex) {
+                    Platform.runLater(() -> showAlert("Error", "Failed to export chart as PNG: " + reason(ex)));
+                }
+            });
         }
     }
 
@@ -593,24 +1078,69 @@ public class DepartmentScoreAnalyzer extends Application {
         fileChooser.setTitle("Save Chart as PDF");
         fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF Files", "*.pdf"));
         File file = fileChooser.showSaveDialog(primaryStage);
+        if (file == null) {
+            return;
+        }
+        if (boxPlot || !chartSeries().isEmpty()) {
+            // No vector drawing for these yet; embed a snapshot of the chart
+            WritableImage image = chartSnapshot();
+            int scale = exportScale;
+            exportExecutor().execute(() -> {
+                try {
+                    AggregateExporter.writeImagePdf(SwingFXUtils.fromFXImage(image, null), file, scale);
+                    Platform.runLater(() -> showAlert("Success", "Chart exported successfully as PDF."));
+                } catch (IOException | RuntimeException ex) {
+                    Platform.runLater(() -> showAlert("Error", "Failed to export chart as PDF: " + reason(ex)));
+                }
+            });
+            return;
+        }
+        try {
+            GroupBy shown = activeGroupBy();
+            boolean departmentAverage = shown.equals(GroupBy.DEPARTMENT_AVERAGE);
+            PdfChartRenderer.write(file,
+                    departmentAverage ? ChartRenderer.TITLE : shown.title(),
+                    departmentAverage ? ChartRenderer.CATEGORY_LABEL : shown.categoryLabel(),
+                    departmentAverage ? ChartRenderer.VALUE_LABEL : shown.valueLabel(),
+                    chartValues, isVerticalChart);
+            showAlert("Success", "Chart exported successfully as PDF.");
+        } catch (IOException | RuntimeException e) {
+            showAlert("Error", "Failed to export chart as PDF: " + reason(e));
+        }
+    }
+
+    // Snapshot of the chart at the export scale; must run on the FX thread.
+    private WritableImage chartSnapshot() {
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setTransform(Transform.scale(exportScale, exportScale));
+        return chart.snapshot(parameters, null);
+    }
+
+    // Writes the multi-page report of the current snapshot on a loader thread.
+    private void exportReport(Stage primaryStage) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save Report as PDF");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF Files", "*.pdf"));
+        File file = fileChooser.showSaveDialog(primaryStage);
         if (file != null) {
-            WritableImage snapshot = chart.snapshot(new SnapshotParameters(), null);
-            BufferedImage bufferedImage = SwingFXUtils.fromFXImage(snapshot, null);
-            try (PDDocument doc = new PDDocument()) {
-                PDPage page = new PDPage(new PDRectangle(bufferedImage.getWidth(), bufferedImage.getHeight()));
-                doc.addPage(page);
-                PDImageXObject pdImage = LosslessFactory.createFromImage(doc, bufferedImage);
-                try (PDPageContentStream contentStream = new PDPageContentStream(doc, page)) {
-                    contentStream.drawImage(pdImage, 0, 0, bufferedImage.getWidth(), bufferedImage.getHeight());
+            DatasetSnapshot reported = snapshot;
+            loadExecutor.execute(() -> {
+                try {
+                    ReportWriter.write(file, ReportWriter.DEFAULT_TITLE, reported,
+                            Runtime.getRuntime().availableProcessors());
+                    Platform.runLater(() -> showAlert("Success", "Report exported successfully to " + file.getName()));
+                } catch (IOException | RuntimeException ex) {
+                    Platform.runLater(() -> showAlert("Error", "Failed to export report: " + reason(ex)));
                 }
-                doc.save(file);
-                showAlert("Success", "Chart exported successfully as PDF.");
-            } catch (IOException e) {
-                showAlert("Error", "Failed to export chart as PDF: " + e.getMessage());
-            }
+            });
         }
     }
 
+    // The message of a failure for an alert; unchecked exceptions often have none.
+    private static String reason(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.toString();
+    }
+
     // Displays an alert dialog with a title and message.
     private void showAlert(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
@@ -620,32 +1150,11 @@ public class DepartmentScoreAnalyzer extends Application {
         alert.showAndWait();
     }
 
-    // Inner class representing a student record.
-    private static class Student {
-        private String studentId;
-        private String department;
-        private double finalScore;
-
-        public Student(String studentId, String department, double finalScore) {
-            this.studentId = studentId;
-            this.department = department;
-            this.finalScore = finalScore;
-        }
-
-        public String getStudentId() {
-            return studentId;
-        }
-
-        public String getDepartment() {
-            return department;
-        }
-
-        public double getFinalScore() {
-            return finalScore;
-        }
-    }
-
+    // "--batch ..." runs the headless exporter instead of the UI (see BatchExport).
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(BatchExport.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
         launch(args);
     }
 }
@@ -0,0 +1,215 @@
+package DepartmentFinalScoreChart;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Follows a CSV that is being appended to. The file is read once from the start
+// and then, whenever the WatchService reports a change, only the bytes past the
+// last offset are parsed and folded into running per-department accumulators.
+// A record cut off at the end of the file is kept back until its line break
+// arrives. If the file shrinks (truncated) or is replaced by another file, say
+// by an atomic rename, it is read again from the start. A replacement is told by
+// the file key, or by the creation time where the file system has no keys.
+//
+// Every batch of new rows is published to the listener as a fresh snapshot of
+// aggregates (no table), on the follower's own daemon thread.
+final class FileFollower implements Closeable {
+
+    // Some file systems (network shares) do not deliver change events, so the
+    // size is also checked at this interval
+    private static final long POLL_SECONDS = 2;
+    private static final int READ_SIZE = 4 * 1024 * 1024;
+
+    interface Listener {
+        // snapshot holds every row read so far; newRows of them arrived in this batch
+        void updated(DatasetSnapshot snapshot, long newRows);
+
+        void failed(IOException e);
+    }
+
+    private final Path path;
+    private final Listener listener;
+    private final WatchService watcher;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    // Parse state, only touched by the follower thread
+    private ByteCsvScanner scanner = new ByteCsvScanner(); // replaced once the encoding is known
+    private Map<String, ScoreAccumulator> stats = new HashMap<>();
+    private LoadDiagnostics diagnostics;  // bad rows since the last (re)start, never over budget
+    private int[] columns;         // Department and Final_Score, once the header is read
+    private int requiredFields;
+    private long offset;           // bytes of the file read so far
+    private Object identity;       // of the file offset refers to, null before the first read
+    private byte[] pending = new byte[64 * 1024];
+    private int pendingLength;     // bytes read but not yet parsed (an incomplete record)
+
+    private FileFollower(File file, Listener listener) throws IOException {
+        this.path = file.getCanonicalFile().toPath();
+        this.listener = listener;
+        this.diagnostics = new LoadDiagnostics(path.getFileName().toString(), LoadDiagnostics.UNLIMITED);
+        this.watcher = path.getFileSystem().newWatchService();
+        path.getParent().register(watcher, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_CREATE);
+        this.thread = new Thread(this::run, "csv-follower");
+        thread.setDaemon(true);
+    }
+
+    // Starts following file; the first update covers the whole current file.
+    static FileFollower start(File file, Listener listener) throws IOException {
+        if (CompressedInput.Format.of(file) != CompressedInput.Format.NONE) {
+            throw new IOException("compressed files cannot be followed");
+        }
+        FileFollower follower = new FileFollower(file, listener);
+        follower.thread.start();
+        return follower;
+    }
+
+    private void run() {
+        try {
+            readAppended();
+            while (!closed) {
+                WatchKey key = watcher.poll(POLL_SECONDS, TimeUnit.SECONDS);
+                if (key != null) {
+                    // Events for other files in the directory are harmless: readAppended
+                    // returns at once when the size has not changed
+                    key.pollEvents();
+                    key.reset();
+                }
+                readAppended();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // closed
+        } catch (IOException e) {
+            if (!closed) {
+                listener.failed(e);
+            }
+        }
+    }
+
+    // Parses whatever was appended since the last call and publishes the result.
+    private void readAppended() throws IOException {
+        long rowsBefore = rowCount();
+        boolean restarted = false;
+        // Taken before opening: if the file is replaced in between, the next call
+        // sees a new identity and reads the replacement from the start
+        Object current;
+        try {
+            current = identity(path);
+        } catch (NoSuchFileException e) {
+            return; // being replaced; read again when it reappears
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < offset || (identity != null && !identity.equals(current))) {
+                restart();
+                restarted = true;
+            }
+            identity = current;
+            while (offset < size && !closed) {
+                if (pending.length - pendingLength < READ_SIZE) {
+                    pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + READ_SIZE));
+                }
+                int n = channel.read(ByteBuffer.wrap(pending, pendingLength,
+                        (int) Math.min(READ_SIZE, size - offset)), offset);
+                if (n <= 0) {
+                    break;
+                }
+                offset += n;
+                pendingLength += n;
+                parsePending();
+            }
+        } catch (NoSuchFileException e) {
+            return; // being replaced; read again when it reappears
+        }
+        long newRows = rowCount() - rowsBefore;
+        if ((newRows != 0 || restarted) && !closed) {
+            String name = path.getFileName().toString();
+            listener.updated(new DatasetSnapshot(name, null, copyOfStats(),
+                    LoadDiagnostics.merge(name, List.of(diagnostics))), newRows);
+        }
+    }
+
+    // Parses every complete record in pending and keeps the incomplete tail.
+    private void parsePending() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(pending, 0, pendingLength);
+        scanner.reset(buffer, 0, pendingLength);
+        if (columns == null) {
+            if (!StudentDataProcessor.containsLineBreak(pending, pendingLength)) {
+                return; // header not complete yet
+            }
+            CsvEncoding encoding = CsvEncoding.of(pending, pendingLength);
+            if (!encoding.isAsciiCompatible()) {
+                throw new IOException("Cannot follow a " + encoding + " file");
+            }
+            scanner = new ByteCsvScanner(encoding.charset);
+            scanner.reset(buffer, encoding.bomLength, pendingLength);
+            columns = StudentDataProcessor.findColumns(scanner.readHeader());
+            requiredFields = Math.max(columns[0], columns[1]) + 1;
+            scanner.select(columns);
+        }
+        StudentDataProcessor.RowSink sink = (record, department, finalScore) ->
+                stats.computeIfAbsent(department, k -> new ScoreAccumulator()).add(finalScore);
+        while (scanner.next(false)) {
+            StudentDataProcessor.parseStudent(scanner, requiredFields, sink, diagnostics);
+        }
+        int consumed = scanner.position();
+        System.arraycopy(pending, consumed, pending, 0, pendingLength - consumed);
+        pendingLength -= consumed;
+    }
+
+    private void restart() {
+        stats = new HashMap<>();
+        diagnostics = new LoadDiagnostics(path.getFileName().toString(), LoadDiagnostics.UNLIMITED);
+        columns = null;
+        offset = 0;
+        pendingLength = 0;
+        scanner.select();
+        scanner.setLineNumber(1);
+    }
+
+    // What tells this file apart from another one later renamed to its path.
+    private static Object identity(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        Object key = attributes.fileKey();
+        return key != null ? key : attributes.creationTime();
+    }
+
+    private long rowCount() {
+        long rows = 0;
+        for (ScoreAccumulator accumulator : stats.values()) {
+            rows += accumulator.getCount();
+        }
+        return rows;
+    }
+
+    // Published snapshots get their own accumulators, as the running ones keep changing.
+    private Map<String, ScoreAccumulator> copyOfStats() {
+        Map<String, ScoreAccumulator> copy = new HashMap<>();
+        ScoreAccumulator.mergeInto(copy, stats);
+        return copy;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        watcher.close();
+    }
+}
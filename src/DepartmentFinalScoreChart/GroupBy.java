@@ -0,0 +1,324 @@
+package DepartmentFinalScoreChart;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// A group-by query over a StudentTable: one numeric measure column, one or more
+// categorical key columns and an aggregate function. Each row's key codes are
+// packed into a single long (code + 1 in a few bits per column, so missing
+// values get their own group) and the aggregation is one primitive loop over
+// the column arrays. Small key spaces index dense arrays directly; larger ones
+// go through an open-addressing table of packed keys.
+final class GroupBy {
+
+    // What the app showed before grouping could be chosen
+    static final GroupBy DEPARTMENT_AVERAGE =
+            new GroupBy(Column.FINAL_SCORE, List.of(Column.DEPARTMENT), AggregateFunction.AVERAGE);
+
+    static final String MISSING = "(missing)";
+
+    private static final int DENSE_BITS = 16;
+    private static final int MAX_KEY_BITS = 62;
+
+    private final Column measure;
+    private final List<Column> keys;
+    private final AggregateFunction function;
+
+    GroupBy(Column measure, List<Column> keys, AggregateFunction function) {
+        if (measure.isCategorical()) {
+            throw new IllegalArgumentException(measure + " is not a numeric column");
+        }
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one group-by column is required");
+        }
+        for (Column key : keys) {
+            if (!key.isCategorical()) {
+                throw new IllegalArgumentException(key + " is not a categorical column");
+            }
+        }
+        if (EnumSet.copyOf(keys).size() != keys.size()) {
+            throw new IllegalArgumentException("Group-by columns must be distinct");
+        }
+        this.measure = measure;
+        this.keys = Collections.unmodifiableList(new ArrayList<>(keys));
+        this.function = function;
+    }
+
+    Column getMeasure() {
+        return measure;
+    }
+
+    List<Column> getKeys() {
+        return keys;
+    }
+
+    AggregateFunction getFunction() {
+        return function;
+    }
+
+    // Axis and CSV header for the groups, e.g. "Gender / Grade".
+    String categoryLabel() {
+        StringBuilder label = new StringBuilder();
+        for (Column key : keys) {
+            if (label.length() > 0) {
+                label.append(" / ");
+            }
+            label.append(key.getHeader());
+        }
+        return label.toString();
+    }
+
+    // Axis and CSV header for the values, e.g. "Average Midterm_Score".
+    String valueLabel() {
+        return function == AggregateFunction.COUNT ? "Rows" : function + " " + measure.getHeader();
+    }
+
+    String title() {
+        return valueLabel() + " by " + categoryLabel();
+    }
+
+    // True when every column of the query was loaded into table.
+    boolean appliesTo(StudentTable table) {
+        if (!table.has(measure)) {
+            return false;
+        }
+        for (Column key : keys) {
+            if (!table.has(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Group label -> aggregate, in order of the key codes (first appearance in
+    // the file), with missing values ahead of the others. Groups without any
+    // measure value are left out unless the function is COUNT.
+    Map<String, Double> apply(StudentTable table) {
+        return apply(table, null);
+    }
+
+    // Like apply(table), over only the given rows (all rows when null).
+    Map<String, Double> apply(StudentTable table, RowBitmap rows) {
+        if (!appliesTo(table)) {
+            throw new IllegalArgumentException("The loaded data has no column for " + title());
+        }
+        int keyCount = keys.size();
+        int[][] codes = new int[keyCount][];
+        CategoryDictionary[] dictionaries = new CategoryDictionary[keyCount];
+        int[] shifts = new int[keyCount];
+        int[] widths = new int[keyCount];
+        int bits = 0;
+        for (int k = keyCount - 1; k >= 0; k--) {
+            codes[k] = table.codes(keys.get(k));
+            dictionaries[k] = table.dictionary(keys.get(k));
+            // code + 1 ranges over 0..size
+            widths[k] = 32 - Integer.numberOfLeadingZeros(dictionaries[k].size());
+            shifts[k] = bits;
+            bits += widths[k];
+        }
+        if (bits > MAX_KEY_BITS) {
+            throw new IllegalArgumentException("Too many distinct groups for " + categoryLabel());
+        }
+
+        double[] doubles = measure == Column.FINAL_SCORE ? table.finalScores() : null;
+        float[] floats = doubles == null ? table.floats(measure) : null;
+        Groups groups = new Groups(bits <= DENSE_BITS ? 1 << bits : 0);
+        if (rows == null) {
+            int rowCount = table.getRowCount();
+            for (int row = 0; row < rowCount; row++) {
+                groups.add(key(codes, shifts, row), doubles != null ? doubles[row] : floats[row]);
+            }
+        } else {
+            int[] buffer = new int[1 << 16];
+            for (int c = 0; c < rows.containerCount(); c++) {
+                int n = rows.rows(c, buffer);
+                for (int i = 0; i < n; i++) {
+                    int row = buffer[i];
+                    groups.add(key(codes, shifts, row), doubles != null ? doubles[row] : floats[row]);
+                }
+            }
+        }
+
+        long[] used = groups.usedKeys();
+        Arrays.sort(used);
+        Map<String, Double> result = new LinkedHashMap<>();
+        StringBuilder label = new StringBuilder();
+        for (long key : used) {
+            int slot = groups.slot(key);
+            if (groups.count[slot] == 0 && function != AggregateFunction.COUNT) {
+                continue;
+            }
+            label.setLength(0);
+            for (int k = 0; k < keyCount; k++) {
+                int code = (int) ((key >>> shifts[k]) & ((1L << widths[k]) - 1)) - 1;
+                if (k > 0) {
+                    label.append(" / ");
+                }
+                label.append(code < 0 ? MISSING : dictionaries[k].decode(code));
+            }
+            result.put(label.toString(), value(groups, slot));
+        }
+        return result;
+    }
+
+    private static long key(int[][] codes, int[] shifts, int row) {
+        long key = 0;
+        for (int k = 0; k < codes.length; k++) {
+            key |= (long) (codes[k][row] + 1) << shifts[k];
+        }
+        return key;
+    }
+
+    private double value(Groups groups, int slot) {
+        switch (function) {
+            case SUM:
+                return groups.sum[slot];
+            case COUNT:
+                return groups.rows[slot];
+            case MIN:
+                return groups.min[slot];
+            case MAX:
+                return groups.max[slot];
+            default:
+                return groups.sum[slot] / groups.count[slot];
+        }
+    }
+
+    // Per-group accumulators in parallel arrays, addressed by slot. With a dense
+    // capacity the packed key is the slot; otherwise slots are handed out in
+    // order of first appearance through an open-addressing table.
+    private static final class Groups {
+        private final boolean dense;
+        private long[] tableKeys;   // packed key + 1, 0 for an empty entry
+        private int[] tableSlots;
+        private long[] slotKeys;
+        private int size;
+
+        long[] rows;
+        long[] count;
+        double[] sum;
+        double[] min;
+        double[] max;
+
+        Groups(int denseCapacity) {
+            dense = denseCapacity > 0;
+            int capacity = dense ? denseCapacity : 64;
+            rows = new long[capacity];
+            count = new long[capacity];
+            sum = new double[capacity];
+            min = new double[capacity];
+            max = new double[capacity];
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+            if (!dense) {
+                tableKeys = new long[capacity * 2];
+                tableSlots = new int[capacity * 2];
+                slotKeys = new long[capacity];
+            }
+        }
+
+        void add(long key, double value) {
+            int slot = slot(key);
+            rows[slot]++;
+            if (value == value) { // not NaN
+                count[slot]++;
+                sum[slot] += value;
+                if (value < min[slot]) {
+                    min[slot] = value;
+                }
+                if (value > max[slot]) {
+                    max[slot] = value;
+                }
+            }
+        }
+
+        int slot(long key) {
+            if (dense) {
+                return (int) key;
+            }
+            int mask = tableKeys.length - 1;
+            int i = (int) mix(key) & mask;
+            while (tableKeys[i] != 0) {
+                if (tableKeys[i] == key + 1) {
+                    return tableSlots[i];
+                }
+                i = (i + 1) & mask;
+            }
+            if (size == rows.length) {
+                grow();
+                return slot(key);
+            }
+            tableKeys[i] = key + 1;
+            tableSlots[i] = size;
+            slotKeys[size] = key;
+            return size++;
+        }
+
+        long[] usedKeys() {
+            if (!dense) {
+                return Arrays.copyOf(slotKeys, size);
+            }
+            int used = 0;
+            for (long r : rows) {
+                if (r > 0) {
+                    used++;
+                }
+            }
+            long[] keys = new long[used];
+            int n = 0;
+            for (int slot = 0; slot < rows.length; slot++) {
+                if (rows[slot] > 0) {
+                    keys[n++] = slot;
+                }
+            }
+            return keys;
+        }
+
+        private void grow() {
+            int capacity = rows.length * 2;
+            rows = Arrays.copyOf(rows, capacity);
+            count = Arrays.copyOf(count, capacity);
+            sum = Arrays.copyOf(sum, capacity);
+            min = Arrays.copyOf(min, capacity);
+            max = Arrays.copyOf(max, capacity);
+            Arrays.fill(min, size, capacity, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, size, capacity, Double.NEGATIVE_INFINITY);
+            slotKeys = Arrays.copyOf(slotKeys, capacity);
+            tableKeys = new long[capacity * 2];
+            tableSlots = new int[capacity * 2];
+            int mask = tableKeys.length - 1;
+            for (int slot = 0; slot < size; slot++) {
+                int i = (int) mix(slotKeys[slot]) & mask;
+                while (tableKeys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                tableKeys[i] = slotKeys[slot] + 1;
+                tableSlots[i] = slot;
+            }
+        }
+
+        private static long mix(long key) {
+            key *= 0x9E3779B97F4A7C15L;
+            return key ^ (key >>> 32);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof GroupBy)) {
+            return false;
+        }
+        GroupBy other = (GroupBy) o;
+        return measure == other.measure && keys.equals(other.keys) && function == other.function;
+    }
+
+    @Override
+    public int hashCode() {
+        return (measure.hashCode() * 31 + keys.hashCode()) * 31 + function.hashCode();
+    }
+}
@@ -0,0 +1,212 @@
+package DepartmentFinalScoreChart;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Problems found while parsing one load: a count per category, the first
+// MAX_SAMPLES offending lines as samples, and an optional budget of bad rows
+// past which the load is aborted. Recording a problem is an atomic increment;
+// only the first few take a lock to store their sample, so a file where every
+// row is bad costs no console output and little more than a clean one. One
+// instance is shared by every thread of a parallel load.
+//
+// The budget comes from -Ddepartmentscore.maxBadRows=N (BatchExport
+// --max-bad-rows N); without it any number of bad rows is accepted.
+final class LoadDiagnostics {
+
+    enum Category {
+        SHORT_ROW("row with too few fields", "rows with too few fields"),
+        INVALID_SCORE("invalid Final_Score value (counted as 0)", "invalid Final_Score values (counted as 0)");
+
+        private final String singular;
+        private final String plural;
+
+        Category(String singular, String plural) {
+            this.singular = singular;
+            this.plural = plural;
+        }
+
+        String describe(long count) {
+            return count + " " + (count == 1 ? singular : plural);
+        }
+    }
+
+    // One offending line, kept for the summary.
+    static final class Sample {
+        final String source;
+        final Category category;
+        final long line;
+        final String text;
+
+        Sample(String source, Category category, long line, String text) {
+            this.source = source;
+            this.category = category;
+            this.line = line;
+            this.text = text;
+        }
+
+        @Override
+        public String toString() {
+            return source + " line " + line + ": " + text;
+        }
+    }
+
+    static final long UNLIMITED = Long.MAX_VALUE;
+    static final int MAX_SAMPLES = 20;
+    private static final int MAX_SAMPLE_TEXT = 80;
+
+    // For snapshots that were not built by a parse
+    static final LoadDiagnostics EMPTY = new LoadDiagnostics("", UNLIMITED);
+
+    private final String source;
+    private final long budget;
+    private final AtomicLongArray counts = new AtomicLongArray(Category.values().length);
+    private final List<Sample> samples = new ArrayList<>();
+    private volatile boolean samplesFull;
+
+    LoadDiagnostics(String source, long budget) {
+        this.source = source;
+        this.budget = budget;
+    }
+
+    // Diagnostics for a load of source with the configured budget.
+    static LoadDiagnostics forLoad(String source) {
+        return new LoadDiagnostics(source, configuredBudget());
+    }
+
+    static long configuredBudget() {
+        String configured = System.getProperty("departmentscore.maxBadRows");
+        if (configured == null) {
+            return UNLIMITED;
+        }
+        try {
+            return Math.max(0, Long.parseLong(configured.trim()));
+        } catch (NumberFormatException e) {
+            return UNLIMITED;
+        }
+    }
+
+    // Counts a problem on line, keeping text while there is room for samples.
+    // Throws UncheckedIOException once the bad rows exceed the budget.
+    void record(Category category, long line, String text) {
+        counts.incrementAndGet(category.ordinal());
+        if (!samplesFull) {
+            synchronized (samples) {
+                if (samples.size() < MAX_SAMPLES) {
+                    samples.add(new Sample(source, category, line, shorten(text)));
+                } else {
+                    samplesFull = true;
+                }
+            }
+        }
+        if (budget != UNLIMITED && getBadRows() > budget) {
+            throw new UncheckedIOException(budgetExceeded());
+        }
+    }
+
+    // Throws when a restored (cached) load already exceeds the budget.
+    void checkBudget() throws IOException {
+        if (getBadRows() > budget) {
+            throw budgetExceeded();
+        }
+    }
+
+    private IOException budgetExceeded() {
+        return new IOException("More than " + budget + " bad rows in " + source + "; " + summary());
+    }
+
+    private static String shorten(String text) {
+        return text.length() <= MAX_SAMPLE_TEXT ? text : text.substring(0, MAX_SAMPLE_TEXT) + "...";
+    }
+
+    // Name of the file or stream the problems were found in.
+    String getSource() {
+        return source;
+    }
+
+    long getCount(Category category) {
+        return counts.get(category.ordinal());
+    }
+
+    // Each row has at most one problem, so this is the number of bad rows.
+    long getBadRows() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    boolean isClean() {
+        return getBadRows() == 0;
+    }
+
+    List<Sample> getSamples() {
+        synchronized (samples) {
+            return Collections.unmodifiableList(new ArrayList<>(samples));
+        }
+    }
+
+    // e.g. "2 rows with too few fields, 15 invalid Final_Score values (counted as 0)"
+    String summary() {
+        if (isClean()) {
+            return "no bad rows";
+        }
+        StringBuilder text = new StringBuilder();
+        for (Category category : Category.values()) {
+            long count = getCount(category);
+            if (count > 0) {
+                if (text.length() > 0) {
+                    text.append(", ");
+                }
+                text.append(category.describe(count));
+            }
+        }
+        return text.toString();
+    }
+
+    // The summary followed by the kept samples, one per line.
+    String details() {
+        StringBuilder text = new StringBuilder(summary());
+        List<Sample> kept = getSamples();
+        if (!kept.isEmpty()) {
+            text.append("\n\nFirst ").append(kept.size() == 1 ? "problem" : kept.size() + " problems").append(':');
+            for (Sample sample : kept) {
+                text.append("\n  ").append(sample);
+            }
+        }
+        return text.toString();
+    }
+
+    // Sum of the counts of parts, with their samples in order up to MAX_SAMPLES.
+    static LoadDiagnostics merge(String source, List<LoadDiagnostics> parts) {
+        LoadDiagnostics merged = new LoadDiagnostics(source, UNLIMITED);
+        for (LoadDiagnostics part : parts) {
+            for (int i = 0; i < part.counts.length(); i++) {
+                merged.counts.addAndGet(i, part.counts.get(i));
+            }
+            for (Sample sample : part.getSamples()) {
+                if (merged.samples.size() < MAX_SAMPLES) {
+                    merged.samples.add(sample);
+                }
+            }
+        }
+        merged.samplesFull = merged.samples.size() >= MAX_SAMPLES;
+        return merged;
+    }
+
+    // Rebuilds cached diagnostics; counts are indexed by Category ordinal.
+    static LoadDiagnostics restore(String source, long budget, long[] counts, List<Sample> samples) {
+        LoadDiagnostics restored = new LoadDiagnostics(source, budget);
+        for (int i = 0; i < counts.length && i < restored.counts.length(); i++) {
+            restored.counts.set(i, counts[i]);
+        }
+        restored.samples.addAll(samples.subList(0, Math.min(samples.size(), MAX_SAMPLES)));
+        restored.samplesFull = restored.samples.size() >= MAX_SAMPLES;
+        return restored;
+    }
+}
@@ -0,0 +1,28 @@
+package DepartmentFinalScoreChart;
+
+// How a CSV file is turned into department statistics.
+enum LoadMode {
+    AUTO("Auto"),                // FULL for small files, PARALLEL for large ones
+    FULL("Keep all rows"),       // every row kept in memory
+    STREAMING("Streaming"),      // rows folded into per-department accumulators, O(departments) memory
+    PARALLEL("Parallel (mmap)"); // memory-mapped chunks parsed on all cores, aggregates only
+
+    private final String label;
+
+    LoadMode(String label) {
+        this.label = label;
+    }
+
+    // Resolves AUTO for a file of the given size.
+    LoadMode resolve(long fileSize) {
+        if (this != AUTO) {
+            return this;
+        }
+        return fileSize >= ParallelCsvLoader.PARALLEL_THRESHOLD ? PARALLEL : FULL;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,54 @@
+package DepartmentFinalScoreChart;
+
+import java.io.File;
+import java.util.List;
+import javafx.concurrent.Task;
+
+// Runs StudentDataProcessor.loadAll off the JavaFX Application Thread, publishing
+// bytes read as progress and a rows/bytes line as the message. When the rows
+// were kept, their bitmap indexes are built here too, so the first filter
+// change does not stall the UI.
+class LoadTask extends Task<DatasetSnapshot> {
+
+    private final List<File> files;
+    private final LoadMode mode;
+    private final String name;
+
+    LoadTask(List<File> files, LoadMode mode) {
+        this.files = List.copyOf(files);
+        this.mode = mode;
+        this.name = files.size() == 1 ? files.get(0).getName() : files.size() + " files";
+    }
+
+    List<File> getFiles() {
+        return files;
+    }
+
+    // File name, or "N files" for a multi-file load.
+    String getName() {
+        return name;
+    }
+
+    @Override
+    protected DatasetSnapshot call() throws Exception {
+        updateMessage("Loading " + name + "...");
+        DatasetSnapshot snapshot = StudentDataProcessor.loadAll(files, mode, new StudentDataProcessor.LoadMonitor() {
+            @Override
+            public void progress(long rows, long bytesRead, long totalBytes) {
+                updateProgress(bytesRead, totalBytes);
+                updateMessage(String.format("Loading %s: %,d rows (%,d of %,d KB)",
+                        name, rows, bytesRead / 1024, totalBytes / 1024));
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return LoadTask.this.isCancelled();
+            }
+        });
+        if (snapshot.getTable() != null && !isCancelled()) {
+            updateMessage("Indexing " + name + "...");
+            snapshot.getTable().index();
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,334 @@
+package DepartmentFinalScoreChart;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+// Parallel loader for very large CSVs. The file is memory-mapped and cut into
+// chunks that end on record boundaries, each chunk is parsed on the ForkJoinPool
+// into its own per-department accumulators, and the partial results are merged.
+//
+// Boundaries are found in two parallel passes. The first runs the scanner's
+// tokenizer states (ByteCsvScanner.advance) over fixed-size raw chunks from
+// every possible start state and counts line feeds, so chaining the chunks from
+// the header gives the exact state at each raw boundary; a stray quote inside
+// an unquoted field is read as text, as the scanner reads it. The second moves
+// each boundary forward to the first line break outside quotes. Quoted fields
+// spanning lines are never split.
+final class ParallelCsvLoader {
+
+    // Files at least this large are loaded in parallel by StudentDataProcessor.load
+    static final long PARALLEL_THRESHOLD = 64L * 1024 * 1024;
+
+    private static final long MIN_CHUNK_SIZE = 4L * 1024 * 1024;
+    private static final long MAX_CHUNK_SIZE = 256L * 1024 * 1024;
+    private static final int HEADER_WINDOW = 1024 * 1024;
+    private static final int SCAN_WINDOW = 1024 * 1024;
+
+    private ParallelCsvLoader() {
+    }
+
+    // Loads the file into department averages without keeping individual rows.
+    static DatasetSnapshot load(File file, StudentDataProcessor.LoadMonitor monitor) throws IOException {
+        return load(file, monitor, ForkJoinPool.commonPool());
+    }
+
+    // Files that are not ASCII-compatible (UTF-16) cannot be cut at raw line
+    // feeds and are streamed through the char tokenizer instead.
+    static DatasetSnapshot load(File file, StudentDataProcessor.LoadMonitor monitor, ForkJoinPool pool)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (!CsvEncoding.detect(channel).isAsciiCompatible()) {
+                return StudentDataProcessor.loadStreaming(file, monitor);
+            }
+        }
+        LoadDiagnostics diagnostics = LoadDiagnostics.forLoad(file.getName());
+        Map<String, ScoreAccumulator> accumulators = aggregate(file, monitor, pool, diagnostics);
+        return new DatasetSnapshot(file.getName(), null, accumulators, diagnostics);
+    }
+
+    // Parses the file on the pool into merged per-department accumulators.
+    static Map<String, ScoreAccumulator> aggregate(File file, StudentDataProcessor.LoadMonitor monitor,
+                                                   ForkJoinPool pool, LoadDiagnostics diagnostics)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            CsvEncoding encoding = CsvEncoding.detect(channel);
+            if (!encoding.isAsciiCompatible()) {
+                throw new IOException(file.getName() + " is " + encoding + ", which cannot be parsed in parallel");
+            }
+
+            // Header
+            ByteCsvScanner headerScanner = new ByteCsvScanner(encoding.charset);
+            MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, HEADER_WINDOW));
+            headerScanner.reset(head, encoding.bomLength, head.limit());
+            int[] columns = StudentDataProcessor.findColumns(headerScanner.readHeader());
+            long dataStart = headerScanner.position();
+            long firstLine = 2;
+
+            long dataSize = size - dataStart;
+            if (dataSize <= 0) {
+                return new HashMap<>();
+            }
+            long chunkSize = Math.max(MIN_CHUNK_SIZE,
+                    Math.min(MAX_CHUNK_SIZE, dataSize / (pool.getParallelism() * 4L)));
+            int chunkCount = (int) ((dataSize + chunkSize - 1) / chunkSize);
+            long[] rawStart = new long[chunkCount + 1];
+            for (int i = 0; i < chunkCount; i++) {
+                rawStart[i] = dataStart + i * chunkSize;
+            }
+            rawStart[chunkCount] = size;
+
+            try {
+                // Pass 1: tokenizer state transitions and line feeds per raw chunk
+                long[][] counts = pool.submit(() -> IntStream.range(0, chunkCount).parallel()
+                        .mapToObj(i -> scanStates(channel, rawStart[i], rawStart[i + 1]))
+                        .toArray(long[][]::new)).get();
+
+                // Pass 2: move each raw boundary to the next record boundary
+                long[] start = new long[chunkCount + 1];
+                long[] startLine = new long[chunkCount + 1];
+                start[0] = dataStart;
+                startLine[0] = firstLine;
+                start[chunkCount] = size;
+                int state = ByteCsvScanner.FIELD_START; // the header ends on a record boundary
+                long lines = firstLine;
+                int[] rawState = new int[chunkCount];
+                long[] rawLine = new long[chunkCount];
+                for (int i = 0; i < chunkCount; i++) {
+                    rawState[i] = state;
+                    rawLine[i] = lines;
+                    state = (int) counts[i][state];
+                    lines += counts[i][ByteCsvScanner.STATES];
+                }
+                pool.submit(() -> IntStream.range(1, chunkCount).parallel().forEach(i -> {
+                    long[] boundary = nextRecordStart(channel, rawStart[i], size, rawState[i]);
+                    start[i] = boundary[0];
+                    startLine[i] = rawLine[i] + boundary[1];
+                })).get();
+
+                // Pass 3: parse chunks and merge their accumulators
+                ParseContext context = new ParseContext(channel, encoding.charset, columns, start, startLine,
+                        size, monitor, diagnostics);
+                return pool.invoke(new ChunkTask(context, 0, chunkCount));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Load interrupted", e);
+            } catch (ExecutionException e) {
+                throw unwrap(e.getCause());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static IOException unwrap(Throwable cause) {
+        if (cause instanceof UncheckedIOException) {
+            return ((UncheckedIOException) cause).getCause();
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IOException(cause);
+    }
+
+    // Returns the tokenizer state at to for each state at from (indexes 0 to
+    // STATES - 1), followed by the line feed count of [from, to). Between two
+    // quotes the state only depends on the byte before the next one (a quoted
+    // field stays open, anything else is at a field start or inside a field),
+    // so the tokenizer only runs at quotes. The runs from the different start
+    // states usually agree after the first quoted field, after which one is kept.
+    private static long[] scanStates(FileChannel channel, long from, long to) {
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+            int[] states = new int[ByteCsvScanner.STATES];
+            for (int s = 0; s < states.length; s++) {
+                states[s] = s;
+            }
+            int n = buffer.limit();
+            int settled = 0; // states hold the state before this offset
+            long lines = 0;
+            int i = 0;
+            boolean merged = false;
+            for (; i < n && !merged; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    lines++;
+                } else if (b == '"') {
+                    merged = true;
+                    for (int s = 0; s < states.length; s++) {
+                        int state = i > settled ? ByteCsvScanner.advance(states[s], buffer.get(i - 1)) : states[s];
+                        states[s] = ByteCsvScanner.advance(state, b);
+                        merged &= states[s] == states[0];
+                    }
+                    settled = i + 1;
+                }
+            }
+            int state = states[0];
+            for (; i < n; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    lines++;
+                } else if (b == '"') {
+                    if (i > settled) {
+                        state = ByteCsvScanner.advance(state, buffer.get(i - 1));
+                    }
+                    state = ByteCsvScanner.advance(state, b);
+                    settled = i + 1;
+                }
+            }
+            long[] result = new long[ByteCsvScanner.STATES + 1];
+            for (int s = 0; s < states.length; s++) {
+                int end = merged ? state : states[s];
+                result[s] = n > settled ? ByteCsvScanner.advance(end, buffer.get(n - 1)) : end;
+            }
+            result[ByteCsvScanner.STATES] = lines;
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Returns {offset of the first record starting at or after from, line feeds skipped}.
+    // state is the tokenizer state at from.
+    private static long[] nextRecordStart(FileChannel channel, long from, long size, int state) {
+        try {
+            long lines = 0;
+            for (long windowStart = from; windowStart < size; windowStart += SCAN_WINDOW) {
+                long windowSize = Math.min(SCAN_WINDOW, size - windowStart);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+                for (int i = 0; i < windowSize; i++) {
+                    byte b = buffer.get(i);
+                    if (b == '\n') {
+                        lines++;
+                        if (state != ByteCsvScanner.QUOTED) {
+                            return new long[] {windowStart + i + 1, lines};
+                        }
+                    }
+                    state = ByteCsvScanner.advance(state, b);
+                }
+            }
+            return new long[] {size, lines};
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // State shared by every chunk task of one load.
+    private static final class ParseContext {
+        final FileChannel channel;
+        final Charset charset;
+        final int[] columns;
+        final int requiredFields;
+        final long[] start;
+        final long[] startLine;
+        final long size;
+        final StudentDataProcessor.LoadMonitor monitor;
+        final LoadDiagnostics diagnostics;
+        final AtomicLong rows = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+
+        ParseContext(FileChannel channel, Charset charset, int[] columns, long[] start, long[] startLine,
+                     long size, StudentDataProcessor.LoadMonitor monitor, LoadDiagnostics diagnostics) {
+            this.channel = channel;
+            this.charset = charset;
+            this.columns = columns;
+            this.requiredFields = Math.max(columns[0], columns[1]) + 1;
+            this.start = start;
+            this.startLine = startLine;
+            this.size = size;
+            this.monitor = monitor;
+            this.diagnostics = diagnostics;
+        }
+    }
+
+    // Parses chunks [from, to), splitting in half until a single chunk remains.
+    private static final class ChunkTask extends RecursiveTask<Map<String, ScoreAccumulator>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ParseContext context; // tasks are never serialized
+        private final int from;
+        private final int to;
+
+        ChunkTask(ParseContext context, int from, int to) {
+            this.context = context;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<String, ScoreAccumulator> compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                ChunkTask left = new ChunkTask(context, from, middle);
+                left.fork();
+                Map<String, ScoreAccumulator> right = new ChunkTask(context, middle, to).compute();
+                Map<String, ScoreAccumulator> merged = left.join();
+                ScoreAccumulator.mergeInto(merged, right);
+                return merged;
+            }
+            try {
+                return parseChunk(from);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private Map<String, ScoreAccumulator> parseChunk(int chunk) throws IOException {
+            Map<String, ScoreAccumulator> accumulators = new HashMap<>();
+            long chunkStart = context.start[chunk];
+            long chunkEnd = context.start[chunk + 1];
+            if (chunkEnd <= chunkStart) {
+                return accumulators;
+            }
+            if (chunkEnd - chunkStart > Integer.MAX_VALUE) {
+                throw new IOException("Record spanning more than 2 GB near offset " + chunkStart);
+            }
+            MappedByteBuffer buffer = context.channel.map(FileChannel.MapMode.READ_ONLY,
+                    chunkStart, chunkEnd - chunkStart);
+            ByteCsvScanner scanner = new ByteCsvScanner(context.charset);
+            scanner.select(context.columns);
+            scanner.reset(buffer, 0, buffer.limit());
+            scanner.setLineNumber(context.startLine[chunk]);
+            StudentDataProcessor.RowSink sink = (record, department, finalScore) ->
+                    accumulators.computeIfAbsent(department, k -> new ScoreAccumulator()).add(finalScore);
+            PipelineMetrics.BatchTimer batches = new PipelineMetrics.BatchTimer(context.diagnostics.getSource());
+            long rows = 0;
+            long chunkRows = 0;
+            int reported = 0;
+            while (scanner.next(true)) {
+                StudentDataProcessor.parseStudent(scanner, context.requiredFields, sink, context.diagnostics);
+                if (++rows % StudentDataProcessor.PROGRESS_INTERVAL == 0) {
+                    reportProgress(rows, scanner.position() - reported);
+                    chunkRows += rows;
+                    rows = 0;
+                    reported = scanner.position();
+                    batches.batch(chunkRows, reported);
+                }
+            }
+            reportProgress(rows, buffer.limit() - reported);
+            batches.batch(chunkRows + rows, buffer.limit());
+            return accumulators;
+        }
+
+        private void reportProgress(long newRows, long newBytes) {
+            StudentDataProcessor.checkCancelled(context.monitor);
+            context.monitor.progress(context.rows.addAndGet(newRows), context.bytes.addAndGet(newBytes),
+                    context.size);
+        }
+    }
+}
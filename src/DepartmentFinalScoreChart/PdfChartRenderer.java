@@ -0,0 +1,262 @@
+package DepartmentFinalScoreChart;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.util.Matrix;
+
+// Draws the bar chart as PDF vector graphics (paths and text) straight from the
+// aggregates, with the same layout as ChartRenderer plus a legend. Nothing is
+// rasterized and no JavaFX node is involved, so it works headless and the files
+// stay small and sharp at any zoom. Text uses the standard Helvetica fonts,
+// which every PDF viewer has, so no font is embedded.
+final class PdfChartRenderer {
+
+    private static final float BAR_SIZE = 80;
+    private static final float CATEGORY_GAP = 50;
+    private static final float VALUE_AXIS_LENGTH = 450;
+    private static final float TOP = 60;
+    private static final float BOTTOM = 90;
+    private static final float RIGHT = 40;
+    private static final float LEGEND_WIDTH = 170;
+    private static final float TITLE_SIZE = 20;
+    private static final float AXIS_SIZE = 14;
+    private static final float VALUE_SIZE = 11;
+    // Largest page side PDF viewers accept (200 inches); more categories than fit
+    // get thinner bars instead of a longer page
+    private static final float MAX_PAGE_SIDE = 14_400;
+
+    static final PDFont FONT = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+    static final PDFont BOLD = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+
+    private PdfChartRenderer() {
+    }
+
+    // Writes a one-page PDF sized to the chart.
+    static void write(File file, String title, String categoryLabel, String valueLabel,
+                      Map<String, Double> values, boolean isVertical) throws IOException {
+        PipelineMetrics.Span span = PipelineMetrics.begin(PipelineMetrics.Stage.EXPORT_PDF, file.getName());
+        try (PDDocument doc = new PDDocument()) {
+            PDRectangle size = preferredSize(values.size(), isVertical);
+            PDPage page = new PDPage(size);
+            doc.addPage(page);
+            try (PDPageContentStream out = new PDPageContentStream(doc, page)) {
+                draw(out, size, title, categoryLabel, valueLabel, values, isVertical);
+            }
+            doc.save(file);
+        }
+        span.end(file.length(), values.size(), 0);
+    }
+
+    // Page size that gives each bar the on-screen chart's bar size and gap, up to
+    // MAX_PAGE_SIDE on either side.
+    static PDRectangle preferredSize(int count, boolean isVertical) {
+        float categoryAxisLength = count <= 1
+            ? BAR_SIZE + (isVertical ? 2 : 4) * CATEGORY_GAP
+            : count * BAR_SIZE + (count + 1) * CATEGORY_GAP;
+        float plotWidth = isVertical ? categoryAxisLength : VALUE_AXIS_LENGTH + 250;
+        float plotHeight = isVertical ? VALUE_AXIS_LENGTH : categoryAxisLength;
+        return new PDRectangle(Math.min(160 + plotWidth + RIGHT + LEGEND_WIDTH, MAX_PAGE_SIDE),
+                Math.min(TOP + plotHeight + BOTTOM, MAX_PAGE_SIDE));
+    }
+
+    // Draws the chart, legend included, into area; bars shrink to fit when needed.
+    static void draw(PDPageContentStream out, PDRectangle area, String title, String categoryLabel,
+                     String valueLabel, Map<String, Double> values, boolean isVertical) throws IOException {
+        draw(out, area, title, categoryLabel, valueLabel, values, isVertical, null);
+    }
+
+    // Like draw above; when department is set, the categories are not departments
+    // (files, say) and every bar takes that department's color and legend entry.
+    static void draw(PDPageContentStream out, PDRectangle area, String title, String categoryLabel,
+                     String valueLabel, Map<String, Double> values, boolean isVertical, String department)
+            throws IOException {
+        List<String> categories = new ArrayList<>(values.keySet());
+        int count = categories.size();
+        double max = 0;
+        for (double value : values.values()) {
+            max = Math.max(max, value);
+        }
+        double[] scale = ChartRenderer.niceScale(max);
+        float upper = (float) scale[0];
+        float step = (float) scale[1];
+
+        float widestCategory = 0;
+        for (String category : categories) {
+            widestCategory = Math.max(widestCategory, width(FONT, AXIS_SIZE, category));
+        }
+        float widestTick = width(FONT, AXIS_SIZE, ChartRenderer.formatTick(upper, step));
+        float left = area.getLowerLeftX() + (isVertical ? widestTick + 50 : Math.min(widestCategory, 200) + 50);
+        float top = area.getUpperRightY() - TOP;
+        float bottom = area.getLowerLeftY() + BOTTOM;
+        float right = area.getUpperRightX() - RIGHT - LEGEND_WIDTH;
+        float plotWidth = right - left;
+        float plotHeight = top - bottom;
+
+        // Title
+        out.setNonStrokingColor(0f, 0f, 0f);
+        float titleWidth = width(FONT, TITLE_SIZE, title);
+        text(out, FONT, TITLE_SIZE, title, area.getLowerLeftX() + (area.getWidth() - titleWidth) / 2,
+                area.getUpperRightY() - TOP / 2 - TITLE_SIZE / 3);
+
+        // Grid lines and value ticks
+        out.setLineWidth(0.5f);
+        out.setStrokingColor(0f, 0f, 0f);
+        for (float tick = 0; tick <= upper + step / 2; tick += step) {
+            String label = ChartRenderer.formatTick(tick, step);
+            if (isVertical) {
+                float y = bottom + tick / upper * plotHeight;
+                out.moveTo(left, y);
+                out.lineTo(right, y);
+                out.stroke();
+                text(out, FONT, AXIS_SIZE, label, left - 8 - width(FONT, AXIS_SIZE, label), y - AXIS_SIZE / 3);
+            } else {
+                float x = left + tick / upper * plotWidth;
+                out.moveTo(x, bottom);
+                out.lineTo(x, top);
+                out.stroke();
+                text(out, FONT, AXIS_SIZE, label, x - width(FONT, AXIS_SIZE, label) / 2, bottom - 8 - AXIS_SIZE);
+            }
+        }
+
+        // Bars, value labels and category names
+        float categorySize = (isVertical ? plotWidth : plotHeight) / Math.max(1, count);
+        float barSize = Math.min(BAR_SIZE, categorySize * 0.6f);
+        float labelSize = Math.max(4, Math.min(AXIS_SIZE, categorySize * 0.8f));
+        boolean rotate = isVertical && widestCategory * labelSize / AXIS_SIZE > categorySize;
+        for (int i = 0; i < count; i++) {
+            String category = categories.get(i);
+            float value = values.get(category).floatValue();
+            float center = (i + 0.5f) * categorySize;
+            float length = upper == 0 ? 0 : Math.max(0, value) / upper * (isVertical ? plotHeight : plotWidth);
+            String label = String.format("%.2f", value);
+            fill(out, DepartmentColors.awtColor(department != null ? department : category));
+            if (isVertical) {
+                out.addRect(left + center - barSize / 2, bottom, barSize, length);
+            } else {
+                out.addRect(left, top - center - barSize / 2, length, barSize);
+            }
+            out.fill();
+            out.setNonStrokingColor(0f, 0f, 0f);
+            float valueWidth = width(BOLD, VALUE_SIZE, label);
+            if (isVertical) {
+                if (valueWidth <= categorySize) {
+                    text(out, BOLD, VALUE_SIZE, label, left + center - valueWidth / 2, bottom + 4);
+                }
+                if (rotate) {
+                    rotatedText(out, FONT, labelSize, category, left + center, bottom - 8, Math.PI / 4,
+                            width(FONT, labelSize, category));
+                } else {
+                    text(out, FONT, labelSize, category, left + center - width(FONT, labelSize, category) / 2,
+                            bottom - 8 - labelSize);
+                }
+            } else {
+                if (VALUE_SIZE <= categorySize) {
+                    text(out, BOLD, VALUE_SIZE, label, left + 6, top - center - VALUE_SIZE / 3);
+                }
+                text(out, FONT, labelSize, category, left - 8 - width(FONT, labelSize, category),
+                        top - center - labelSize / 3);
+            }
+        }
+
+        // Axis lines
+        out.setLineWidth(1f);
+        out.moveTo(left, top);
+        out.lineTo(left, bottom);
+        out.lineTo(right, bottom);
+        out.stroke();
+
+        // Axis labels
+        String xLabel = isVertical ? categoryLabel : valueLabel;
+        String yLabel = isVertical ? valueLabel : categoryLabel;
+        text(out, FONT, AXIS_SIZE, xLabel, left + (plotWidth - width(FONT, AXIS_SIZE, xLabel)) / 2,
+                area.getLowerLeftY() + 20);
+        rotatedText(out, FONT, AXIS_SIZE, yLabel, area.getLowerLeftX() + 22,
+                bottom + plotHeight / 2, Math.PI / 2, width(FONT, AXIS_SIZE, yLabel) / 2);
+
+        // Legend
+        float y = top - AXIS_SIZE;
+        float x = right + RIGHT;
+        text(out, BOLD, AXIS_SIZE, "Legend", x, y);
+        List<String> legendGroups = department != null ? List.of(department) : categories;
+        for (Map.Entry<String, String> entry
+                : DepartmentColors.legend(legendGroups, DepartmentChart.CANVAS_THRESHOLD).entrySet()) {
+            y -= AXIS_SIZE + 8;
+            if (y < area.getLowerLeftY() + 10) {
+                break;
+            }
+            fill(out, Color.decode(entry.getValue()));
+            out.addRect(x, y, 12, 12);
+            out.fill();
+            out.setNonStrokingColor(0f, 0f, 0f);
+            out.addRect(x, y, 12, 12);
+            out.stroke();
+            text(out, FONT, 12, entry.getKey(), x + 20, y + 2);
+        }
+    }
+
+    // Width of text in the font, in points.
+    static float width(PDFont font, float size, String text) throws IOException {
+        return font.getStringWidth(printable(font, text)) / 1000 * size;
+    }
+
+    static void text(PDPageContentStream out, PDFont font, float size, String text, float x, float y)
+            throws IOException {
+        out.beginText();
+        out.setFont(font, size);
+        out.newLineAtOffset(x, y);
+        out.showText(printable(font, text));
+        out.endText();
+    }
+
+    // Text rotated by angle (radians) about (x, y), ending shift points before the pivot.
+    private static void rotatedText(PDPageContentStream out, PDFont font, float size, String text,
+                                    float x, float y, double angle, float shift) throws IOException {
+        out.beginText();
+        out.setFont(font, size);
+        out.setTextMatrix(Matrix.getRotateInstance(angle, x, y));
+        out.newLineAtOffset(-shift, 0);
+        out.showText(printable(font, text));
+        out.endText();
+    }
+
+    private static void fill(PDPageContentStream out, Color color) throws IOException {
+        out.setNonStrokingColor(color.getRed() / 255f, color.getGreen() / 255f, color.getBlue() / 255f);
+    }
+
+    // Replaces characters the font cannot encode (the standard fonts cover WinAnsi only).
+    static String printable(PDFont font, String text) {
+        StringBuilder result = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 32 && c < 127) {
+                if (result != null) {
+                    result.append(c);
+                }
+                continue;
+            }
+            boolean encodable;
+            try {
+                font.encode(String.valueOf(c));
+                encodable = !Character.isISOControl(c);
+            } catch (IOException | IllegalArgumentException e) {
+                encodable = false;
+            }
+            if (result == null) {
+                result = new StringBuilder(text.length()).append(text, 0, i);
+            }
+            result.append(encodable ? c : '?');
+        }
+        return result == null ? text : result.toString();
+    }
+}
@@ -0,0 +1,291 @@
+package DepartmentFinalScoreChart;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Measures the stages of the pipeline: loads, batches of parsed rows,
+// aggregation, chart and legend building, and exports. Every finished stage is
+// committed as a JDK Flight Recorder event, so a recording taken in production
+// (-XX:StartFlightRecording) shows whether a slow load went to I/O, parsing,
+// aggregation or rendering, and is kept in a short history for the in-app
+// metrics panel. Events are only created once Flight Recorder is running
+// (from the command line or jcmd JFR.start): loading the first event class
+// otherwise starts up JFR, which costs a few hundred milliseconds.
+//
+// Allocation comes from the JVM's per-thread counters: the stage's own thread,
+// or every thread for stages that fan out to pools (loads and reports), which
+// then includes whatever else allocated at the same time. It is only measured
+// while someone looks (a recording or the metrics panel), since starting the
+// management beans adds tens of milliseconds to a headless run.
+final class PipelineMetrics {
+
+    enum Stage {
+        LOAD("Load", true),
+        AGGREGATE("Aggregate", false),
+        CHART("Chart", false),
+        LEGEND("Legend", false),
+        EXPORT_CSV("Export CSV", false),
+        EXPORT_PNG("Export PNG", false),
+        EXPORT_PDF("Export PDF", false),
+        REPORT("Report", true);
+
+        private final String label;
+        private final boolean multiThreaded;
+
+        Stage(String label, boolean multiThreaded) {
+            this.label = label;
+            this.multiThreaded = multiThreaded;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    @Name("DepartmentScore.Stage")
+    @Label("Pipeline Stage")
+    @Category("Department Score")
+    @Description("A load, aggregation, chart update or export")
+    @StackTrace(false)
+    static final class StageEvent extends Event {
+        @Label("Stage")
+        String stage;
+
+        @Label("Source")
+        String source;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Rows")
+        long rows;
+
+        @Label("Rejected Rows")
+        long rejectedRows;
+
+        @Label("Rows per Second")
+        double rowsPerSecond;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+    }
+
+    @Name("DepartmentScore.ParseBatch")
+    @Label("Parse Batch")
+    @Category("Department Score")
+    @Description("StudentDataProcessor.PROGRESS_INTERVAL rows parsed by one thread")
+    @StackTrace(false)
+    static final class ParseBatchEvent extends Event {
+        @Label("Source")
+        String source;
+
+        @Label("Rows")
+        long rows;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Rows per Second")
+        double rowsPerSecond;
+    }
+
+    // One finished stage, as shown in the metrics panel.
+    static final class Record {
+        final Stage stage;
+        final String source;
+        final long nanos;
+        final long bytes;
+        final long rows;
+        final long rejectedRows;
+        final long allocated; // -1 when the JVM does not count allocation
+
+        Record(Stage stage, String source, long nanos, long bytes, long rows, long rejectedRows, long allocated) {
+            this.stage = stage;
+            this.source = source;
+            this.nanos = nanos;
+            this.bytes = bytes;
+            this.rows = rows;
+            this.rejectedRows = rejectedRows;
+            this.allocated = allocated;
+        }
+
+        double rowsPerSecond() {
+            return nanos == 0 ? 0 : rows * 1e9 / nanos;
+        }
+
+        // e.g. "Load        big.csv: 1,612 ms, 2,000,000 rows (1,240,694/s), 91,344 KB, 0 rejected, 412 MB allocated"
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(String.format("%-11s %s: %,d ms", stage, source, nanos / 1_000_000));
+            if (rows > 0) {
+                text.append(String.format(", %,d rows (%,.0f/s)", rows, rowsPerSecond()));
+            }
+            if (bytes > 0) {
+                text.append(String.format(", %,d KB", bytes / 1024));
+            }
+            if (rejectedRows > 0) {
+                text.append(String.format(", %,d rejected", rejectedRows));
+            }
+            if (allocated >= 0) {
+                text.append(String.format(", %,d MB allocated", allocated / (1024 * 1024)));
+            }
+            return text.toString();
+        }
+    }
+
+    // A stage being measured; end it once, on the thread that began it.
+    static final class Span {
+        private final Stage stage;
+        private final String source;
+        private final StageEvent event = FlightRecorder.isInitialized() ? new StageEvent() : null;
+        private final boolean observed = event != null || listener != null;
+        private final long start = System.nanoTime();
+        private final long allocatedAtStart;
+
+        private Span(Stage stage, String source) {
+            this.stage = stage;
+            this.source = source;
+            this.allocatedAtStart = observed ? allocatedBytes(stage) : -1;
+            if (event != null) {
+                event.begin();
+            }
+        }
+
+        // Records the stage; a stage that failed is simply not ended.
+        void end(long bytes, long rows, long rejectedRows) {
+            long nanos = System.nanoTime() - start;
+            long allocatedAtEnd = observed ? allocatedBytes(stage) : -1;
+            long allocated = allocatedAtStart < 0 || allocatedAtEnd < 0 ? -1 : allocatedAtEnd - allocatedAtStart;
+            Record record = new Record(stage, source, nanos, bytes, rows, rejectedRows, allocated);
+            if (event != null && event.shouldCommit()) {
+                event.stage = stage.toString();
+                event.source = source;
+                event.bytes = bytes;
+                event.rows = rows;
+                event.rejectedRows = rejectedRows;
+                event.rowsPerSecond = record.rowsPerSecond();
+                event.allocated = Math.max(0, allocated);
+                event.commit();
+            }
+            add(record);
+        }
+    }
+
+    // Times consecutive batches of parsed rows on one thread.
+    static final class BatchTimer {
+        private final String source;
+        private ParseBatchEvent event; // null while Flight Recorder is not running
+        private long start;
+        private long rows;
+        private long bytes;
+
+        BatchTimer(String source) {
+            this.source = source;
+            restart();
+        }
+
+        private void restart() {
+            event = FlightRecorder.isInitialized() ? new ParseBatchEvent() : null;
+            if (event != null) {
+                event.begin();
+            }
+            start = System.nanoTime();
+        }
+
+        // Ends the batch that brought the running totals to rows and bytes.
+        void batch(long totalRows, long totalBytes) {
+            if (event != null && event.shouldCommit()) {
+                long nanos = System.nanoTime() - start;
+                event.source = source;
+                event.rows = totalRows - rows;
+                event.bytes = totalBytes - bytes;
+                event.rowsPerSecond = nanos == 0 ? 0 : event.rows * 1e9 / nanos;
+                event.commit();
+            }
+            rows = totalRows;
+            bytes = totalBytes;
+            restart();
+        }
+    }
+
+    static final int HISTORY = 30;
+
+    private static final Deque<Record> history = new ArrayDeque<>();
+    private static volatile Runnable listener;
+
+    private PipelineMetrics() {
+    }
+
+    // Holds the thread bean, so the management classes load on first measurement.
+    private static final class Allocation {
+        static final com.sun.management.ThreadMXBean THREADS = threadBean();
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                    return threads;
+                }
+            }
+        } catch (LinkageError | SecurityException e) {
+            // no jdk.management module: allocation is not reported
+        }
+        return null;
+    }
+
+    private static long allocatedBytes(Stage stage) {
+        com.sun.management.ThreadMXBean threads = Allocation.THREADS;
+        if (threads == null) {
+            return -1;
+        }
+        return stage.multiThreaded ? threads.getTotalThreadAllocatedBytes() : threads.getCurrentThreadAllocatedBytes();
+    }
+
+    // Starts measuring stage for source (a file name, a grouping).
+    static Span begin(Stage stage, String source) {
+        return new Span(stage, source);
+    }
+
+    private static void add(Record record) {
+        synchronized (history) {
+            if (history.size() == HISTORY) {
+                history.removeFirst();
+            }
+            history.addLast(record);
+        }
+        Runnable current = listener;
+        if (current != null) {
+            current.run();
+        }
+    }
+
+    // The last HISTORY stages, oldest first.
+    static List<Record> history() {
+        synchronized (history) {
+            return new ArrayList<>(history);
+        }
+    }
+
+    // Called on the recording thread after every stage; null to stop.
+    static void setListener(Runnable newListener) {
+        listener = newListener;
+    }
+}
@@ -0,0 +1,164 @@
+package DepartmentFinalScoreChart;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Reads a source stream (a decompressor) on its own thread, so producing the
+// bytes and parsing them overlap. The reading thread fills blocks from a fixed
+// ring of BLOCKS buffers and queues them; the parser copies them out and hands
+// each block back once it is used up. The ring bounds memory to
+// BLOCKS * BLOCK_SIZE bytes and makes the reader wait when parsing falls behind.
+//
+// A failure of the source is rethrown by the read that reaches it. Closing the
+// stream stops the reading thread and closes the source.
+final class PipelinedInputStream extends InputStream {
+
+    static final int BLOCK_SIZE = 256 * 1024;
+    static final int BLOCKS = 4;
+
+    private static final class Block {
+        final byte[] data;
+        int length;
+
+        Block(int size) {
+            data = new byte[size];
+        }
+    }
+
+    // Queued after the last block, also when the source failed
+    private static final Block END = new Block(0);
+
+    private final BlockingQueue<Block> free = new ArrayBlockingQueue<>(BLOCKS);
+    private final BlockingQueue<Block> filled = new ArrayBlockingQueue<>(BLOCKS + 1); // never full: + END
+    private final Thread reader;
+    private volatile IOException failure;
+
+    private Block current; // block being copied out, or null
+    private int offset;
+    private boolean ended;
+
+    PipelinedInputStream(InputStream source, String name) {
+        for (int i = 0; i < BLOCKS; i++) {
+            free.add(new Block(BLOCK_SIZE));
+        }
+        reader = new Thread(() -> fill(source), "decompress-" + name);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    // Runs on the reading thread.
+    private void fill(InputStream source) {
+        try (InputStream in = source) {
+            while (true) {
+                Block block = free.take();
+                block.length = readFully(in, block.data);
+                if (block.length > 0) {
+                    filled.add(block);
+                }
+                if (block.length < block.data.length) {
+                    break; // end of the source
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException(e);
+        } catch (InterruptedException e) {
+            // closed by the parser
+        } finally {
+            filled.add(END);
+        }
+    }
+
+    private static int readFully(InputStream in, byte[] data) throws IOException {
+        int length = 0;
+        while (length < data.length) {
+            int n = in.read(data, length, data.length - length);
+            if (n < 0) {
+                break;
+            }
+            length += n;
+        }
+        return length;
+    }
+
+    // Makes current a block with bytes left, waiting for the reading thread;
+    // false at the end of the source.
+    private boolean nextBlock() throws IOException {
+        if (current != null) {
+            return true;
+        }
+        if (ended) {
+            return false;
+        }
+        Block block;
+        try {
+            block = filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for decompressed data");
+        }
+        if (block == END) {
+            ended = true;
+            if (failure != null) {
+                throw failure;
+            }
+            return false;
+        }
+        current = block;
+        offset = 0;
+        return true;
+    }
+
+    private void consumed(int n) {
+        offset += n;
+        if (offset == current.length) {
+            free.add(current);
+            current = null;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextBlock()) {
+            return -1;
+        }
+        int b = current.data[offset] & 0xFF;
+        consumed(1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextBlock()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - offset);
+        System.arraycopy(current.data, offset, b, off, n);
+        consumed(n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.length - offset;
+    }
+
+    @Override
+    public void close() {
+        ended = true;
+        current = null;
+        reader.interrupt();
+        try {
+            reader.join(); // the source is closed when this returns
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package DepartmentFinalScoreChart;
+
+import java.util.Arrays;
+
+// Mergeable quantile sketch in the style of KLL (Karnin, Lang, Liberty). Values
+// go into level 0; when a level is full it is sorted and every other value is
+// promoted to the next level, where each value stands for twice as many inputs.
+// Level capacities shrink geometrically below the top level, so memory stays
+// around 3 * K values however many are added, with a rank error of about 1%.
+// Sketches built on different threads or files merge level by level.
+//
+// Compaction alternates between keeping the odd and even positions instead of
+// flipping a coin, so results do not depend on a random seed.
+final class QuantileSketch {
+
+    static final int K = 200;
+    private static final double DECAY = 2.0 / 3.0;
+
+    private double[][] levels = {new double[K]};
+    private int[] sizes = new int[1];
+    private int[] capacities = {K};
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private boolean oddOffset;
+
+    void add(double value) {
+        if (sizes[0] >= capacities[0]) {
+            compress();
+        }
+        levels[0][sizes[0]++] = value;
+        count++;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        while (levels.length < other.levels.length) {
+            addLevel();
+        }
+        for (int h = 0; h < other.levels.length; h++) {
+            append(h, other.levels[h], other.sizes[h]);
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        compress();
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    // Estimated value at rank q (0..1) of everything added; 0 when empty.
+    double quantile(double q) {
+        return quantiles(q)[0];
+    }
+
+    // Estimates several quantiles with one sort of the retained values.
+    double[] quantiles(double... qs) {
+        double[] result = new double[qs.length];
+        if (count == 0) {
+            return result;
+        }
+        int retained = 0;
+        for (int size : sizes) {
+            retained += size;
+        }
+        // Pack (value, weight) pairs, sort by value and walk the cumulative weight
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        Integer[] order = new Integer[retained];
+        int n = 0;
+        for (int h = 0; h < levels.length; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                values[n] = levels[h][i];
+                weights[n] = 1L << h;
+                order[n] = n;
+                n++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        long totalWeight = 0;
+        for (long weight : weights) {
+            totalWeight += weight;
+        }
+        for (int j = 0; j < qs.length; j++) {
+            double q = qs[j];
+            if (q <= 0) {
+                result[j] = min;
+                continue;
+            }
+            if (q >= 1) {
+                result[j] = max;
+                continue;
+            }
+            double target = q * totalWeight;
+            long cumulative = 0;
+            double value = max;
+            for (int i = 0; i < retained; i++) {
+                cumulative += weights[order[i]];
+                if (cumulative >= target) {
+                    value = values[order[i]];
+                    break;
+                }
+            }
+            result[j] = value;
+        }
+        return result;
+    }
+
+    // Adds a top level; the capacity of level h is K * DECAY^(depth below the top).
+    private void addLevel() {
+        levels = Arrays.copyOf(levels, levels.length + 1);
+        sizes = Arrays.copyOf(sizes, sizes.length + 1);
+        levels[levels.length - 1] = new double[K];
+        capacities = new int[levels.length];
+        for (int h = 0; h < levels.length; h++) {
+            int depth = levels.length - 1 - h;
+            capacities[h] = Math.max(2, (int) Math.ceil(K * Math.pow(DECAY, depth)));
+        }
+    }
+
+    private void append(int h, double[] values, int length) {
+        if (sizes[h] + length > levels[h].length) {
+            levels[h] = Arrays.copyOf(levels[h], Math.max(levels[h].length * 2, sizes[h] + length));
+        }
+        System.arraycopy(values, 0, levels[h], sizes[h], length);
+        sizes[h] += length;
+    }
+
+    // Compacts every level that is over its capacity, lowest first.
+    private void compress() {
+        for (int h = 0; h < levels.length; h++) {
+            if (sizes[h] < capacities[h]) {
+                continue;
+            }
+            if (h + 1 == levels.length) {
+                addLevel();
+            }
+            double[] level = levels[h];
+            int size = sizes[h];
+            Arrays.sort(level, 0, size);
+            // An odd value out stays behind at this level
+            int pairs = size / 2;
+            int kept = size - pairs * 2;
+            double leftover = level[size - 1];
+            int offset = oddOffset ? 1 : 0;
+            oddOffset = !oddOffset;
+            double[] promoted = new double[pairs];
+            for (int i = 0; i < pairs; i++) {
+                promoted[i] = level[2 * i + offset];
+            }
+            append(h + 1, promoted, pairs);
+            sizes[h] = kept;
+            if (kept == 1) {
+                level[0] = leftover;
+            }
+        }
+    }
+
+    // Level data for SnapshotCache: number of levels, and each level's values.
+    int levelCount() {
+        return levels.length;
+    }
+
+    double[] levelValues(int h) {
+        return Arrays.copyOf(levels[h], sizes[h]);
+    }
+
+    double getMin() {
+        return min;
+    }
+
+    double getMax() {
+        return max;
+    }
+
+    // Rebuilds a sketch saved with levelCount/levelValues.
+    static QuantileSketch restore(long count, double min, double max, double[][] levelValues) {
+        QuantileSketch sketch = new QuantileSketch();
+        while (sketch.levels.length < levelValues.length) {
+            sketch.addLevel();
+        }
+        for (int h = 0; h < levelValues.length; h++) {
+            sketch.append(h, levelValues[h], levelValues[h].length);
+        }
+        sketch.count = count;
+        sketch.min = min;
+        sketch.max = max;
+        return sketch;
+    }
+}
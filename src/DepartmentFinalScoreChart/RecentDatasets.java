@@ -0,0 +1,128 @@
+package DepartmentFinalScoreChart;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Snapshots of the datasets recently loaded in the app, so switching back to
+// one shows it again without a file chooser or a parse. An entry is keyed by
+// the identity of its files (absolute path, size and modification time) and
+// the load mode, so a file changed on disk is loaded again. Entries are evicted
+// least recently used first once there are more than MAX_ENTRIES or their
+// estimated size passes the budget, -Ddepartmentscore.recentCacheMB (default
+// 512). Only used on the JavaFX Application Thread.
+final class RecentDatasets {
+
+    static final int MAX_ENTRIES = 8;
+    static final long DEFAULT_BUDGET_MB = 512;
+
+    // A cached load, shown by its name and mode.
+    static final class Entry {
+        final String key;
+        final List<File> files;
+        final LoadMode mode;
+        final DatasetSnapshot snapshot;
+        final long bytes;
+
+        private Entry(String key, List<File> files, LoadMode mode, DatasetSnapshot snapshot) {
+            this.key = key;
+            this.files = files;
+            this.mode = mode;
+            this.snapshot = snapshot;
+            this.bytes = snapshot.estimatedBytes();
+        }
+
+        // True while none of the files changed since they were loaded.
+        boolean isCurrent() {
+            return key.equals(key(files, mode));
+        }
+
+        @Override
+        public String toString() {
+            return snapshot.getSourceName() + " (" + mode + ")";
+        }
+    }
+
+    private final long budget;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    RecentDatasets() {
+        this(configuredBudget());
+    }
+
+    RecentDatasets(long budget) {
+        this.budget = budget;
+    }
+
+    static long configuredBudget() {
+        String configured = System.getProperty("departmentscore.recentCacheMB");
+        long megabytes = DEFAULT_BUDGET_MB;
+        if (configured != null) {
+            try {
+                megabytes = Math.max(0, Long.parseLong(configured.trim()));
+            } catch (NumberFormatException e) {
+                // keep the default
+            }
+        }
+        return megabytes * 1024 * 1024;
+    }
+
+    // Identity of files as loaded in mode; take it before the load starts, so a
+    // file written meanwhile does not get its new identity on the old rows.
+    static String key(List<File> files, LoadMode mode) {
+        StringBuilder key = new StringBuilder(mode.name());
+        for (File file : files) {
+            key.append('\n').append(file.getAbsolutePath())
+                    .append('|').append(file.length())
+                    .append('|').append(file.lastModified());
+        }
+        return key.toString();
+    }
+
+    // The entry for key, now the most recently used, or null.
+    Entry get(String key) {
+        return entries.get(key);
+    }
+
+    // Adds a completed load under the key taken before it started and returns
+    // its entry, or null when it alone is larger than the budget.
+    Entry put(String key, List<File> files, LoadMode mode, DatasetSnapshot snapshot) {
+        remove(key);
+        Entry entry = new Entry(key, List.copyOf(files), mode, snapshot);
+        if (entry.bytes > budget) {
+            return null;
+        }
+        entries.put(key, entry);
+        bytes += entry.bytes;
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > MAX_ENTRIES || bytes > budget) {
+            bytes -= eldest.next().bytes;
+            eldest.remove();
+        }
+        return entry;
+    }
+
+    void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.bytes;
+        }
+    }
+
+    // Entries, most recently used first.
+    List<Entry> entries() {
+        List<Entry> recent = new ArrayList<>(entries.values());
+        Collections.reverse(recent);
+        return recent;
+    }
+
+    // Estimated bytes held by the entries.
+    long getBytes() {
+        return bytes;
+    }
+}
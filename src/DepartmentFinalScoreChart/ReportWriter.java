@@ -0,0 +1,348 @@
+package DepartmentFinalScoreChart;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.RandomAccessReadMemoryMappedFile;
+import org.apache.pdfbox.pdfwriter.compress.CompressParameters;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+// Multi-page PDF report over a (possibly multi-file) load: a summary table of
+// every department, a chart of the department averages, a table of the section
+// files, then a chart and a statistics table for each department across the
+// files and for each file across the departments.
+//
+// Memory stays flat however many pages there are. Pages are built in a sliding
+// window: worker threads compute the statistics and lay out the next few pages
+// while this thread draws the finished ones in order, so at most
+// WINDOW_PER_THREAD laid-out pages per thread are held at a time. Drawn pages
+// go into documents of CHUNK_PAGES pages that buffer their content in a
+// temporary file and are saved and closed when full; PDFBox keeps a buffer per
+// content stream while a document is open, so one document for the whole
+// report would grow with every page. The chunks are then joined by reference.
+final class ReportWriter {
+
+    static final String DEFAULT_TITLE = "Department Score Report";
+
+    private static final PDRectangle PAGE = new PDRectangle(PDRectangle.A4.getHeight(), PDRectangle.A4.getWidth());
+    private static final float MARGIN = 40;
+    private static final float FOOTER = 30;
+    private static final float ROW_HEIGHT = 16;
+    private static final float STAT_COLUMN_WIDTH = 70;
+    private static final int ROWS_PER_PAGE = 28;
+    private static final int WINDOW_PER_THREAD = 4;
+    private static final int CHUNK_PAGES = 500;
+    private static final String[] STAT_HEADERS = {"Rows", "Average", "Std dev", "Min", "P25", "Median", "P75", "Max"};
+
+    private final String title;
+    private final String footer;
+    private final DatasetSnapshot merged;
+    private final List<DatasetSnapshot> files;
+    private final List<String> departments;
+
+    // A laid-out page: a chart when chart is set, otherwise a slice of a table.
+    private static final class Page {
+        final String heading;
+        final String subheading;
+        final String categoryLabel;
+        final Map<String, Double> chart;
+        final String department; // color of every bar when the categories are files
+        final String firstHeader;
+        final List<String[]> rows;
+
+        private Page(String heading, String subheading, String categoryLabel, Map<String, Double> chart,
+                     String department, String firstHeader, List<String[]> rows) {
+            this.heading = heading;
+            this.subheading = subheading;
+            this.categoryLabel = categoryLabel;
+            this.chart = chart;
+            this.department = department;
+            this.firstHeader = firstHeader;
+            this.rows = rows;
+        }
+
+        static Page chart(String heading, String categoryLabel, Map<String, Double> values, String department) {
+            return new Page(heading, null, categoryLabel, values, department, null, null);
+        }
+
+        static Page table(String heading, String subheading, String firstHeader, List<String[]> rows) {
+            return new Page(heading, subheading, null, null, null, firstHeader, rows);
+        }
+    }
+
+    private ReportWriter(String title, DatasetSnapshot merged) {
+        this.title = title;
+        this.merged = merged;
+        this.files = merged.getParts().isEmpty() ? List.of(merged) : merged.getParts();
+        this.departments = new ArrayList<>(merged.getDepartmentAverages().keySet());
+        this.footer = title + " - " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
+    }
+
+    // Writes the report for snapshot (and its per-file parts) to file, laying
+    // out pages on up to threads worker threads.
+    static void write(File file, String title, DatasetSnapshot snapshot, int threads) throws IOException {
+        PipelineMetrics.Span span = PipelineMetrics.begin(PipelineMetrics.Stage.REPORT, file.getName());
+        new ReportWriter(title, snapshot).write(file, Math.max(1, threads));
+        span.end(file.length(), snapshot.getRowCount(), snapshot.getDiagnostics().getBadRows());
+    }
+
+    private void write(File file, int threads) throws IOException {
+        List<Callable<Page>> plan = plan();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "report-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<File> chunks = new ArrayList<>();
+        List<PDDocument> opened = new ArrayList<>();
+        try {
+            Deque<Future<Page>> window = new ArrayDeque<>();
+            int next = 0;
+            int number = 0;
+            while (number < plan.size()) {
+                File chunk = File.createTempFile("report", ".pdf");
+                chunk.deleteOnExit();
+                chunks.add(chunk);
+                // Page content goes to a scratch file, not the heap
+                try (PDDocument doc = new PDDocument(IOUtils.createTempFileOnlyStreamCache())) {
+                    for (int i = 0; i < CHUNK_PAGES && number < plan.size(); i++) {
+                        while (next < plan.size() && window.size() < threads * WINDOW_PER_THREAD) {
+                            window.add(executor.submit(plan.get(next++)));
+                        }
+                        Page page = window.poll().get();
+                        PDPage pdfPage = new PDPage(PAGE);
+                        doc.addPage(pdfPage);
+                        try (PDPageContentStream out = new PDPageContentStream(doc, pdfPage)) {
+                            draw(out, page, ++number, plan.size());
+                        }
+                    }
+                    doc.save(chunk, CompressParameters.NO_COMPRESSION);
+                }
+            }
+
+            // Join the chunks. Pages are shared, not copied: their content streams
+            // stay in the memory-mapped chunk files until the final save reads them.
+            try (PDDocument report = new PDDocument(IOUtils.createTempFileOnlyStreamCache())) {
+                report.getDocumentInformation().setTitle(title);
+                for (File chunk : chunks) {
+                    PDDocument part = Loader.loadPDF(new RandomAccessReadMemoryMappedFile(chunk));
+                    opened.add(part);
+                    for (PDPage page : part.getPages()) {
+                        report.addPage(page);
+                    }
+                }
+                report.save(file, CompressParameters.NO_COMPRESSION);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Report interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+        } finally {
+            executor.shutdownNow();
+            for (PDDocument part : opened) {
+                part.close();
+            }
+            for (File chunk : chunks) {
+                chunk.delete();
+            }
+        }
+    }
+
+    // One task per page, in page order; each task only reads the published snapshots.
+    private List<Callable<Page>> plan() {
+        List<Callable<Page>> plan = new ArrayList<>();
+        String overview = files.size() + (files.size() == 1 ? " file, " : " files, ")
+                + rowCount(merged.getDepartmentStats()) + " rows";
+
+        tablePages(plan, title, overview, "Department", departments.size(),
+                i -> statsRow(departments.get(i), merged.getDepartmentStats().get(departments.get(i))));
+        plan.add(() -> Page.chart(ChartRenderer.TITLE, ChartRenderer.CATEGORY_LABEL, merged.getDepartmentAverages(),
+                null));
+        if (files.size() > 1) {
+            tablePages(plan, "Section files", "All departments of each file", "File", files.size(),
+                    i -> statsRow(files.get(i).getSourceName(), combined(files.get(i).getDepartmentStats())));
+        }
+
+        for (String department : departments) {
+            List<DatasetSnapshot> withDepartment = new ArrayList<>();
+            for (DatasetSnapshot part : files) {
+                if (part.getDepartmentStats().containsKey(department)) {
+                    withDepartment.add(part);
+                }
+            }
+            plan.add(() -> {
+                Map<String, Double> averages = new LinkedHashMap<>();
+                for (DatasetSnapshot part : withDepartment) {
+                    averages.put(part.getSourceName(), part.getDepartmentStats().get(department).getAverage());
+                }
+                return Page.chart("Department: " + department, "Section File", averages, department);
+            });
+            tablePages(plan, "Department: " + department, "Final scores per section file", "File",
+                    withDepartment.size(),
+                    i -> statsRow(withDepartment.get(i).getSourceName(),
+                            withDepartment.get(i).getDepartmentStats().get(department)));
+        }
+
+        if (files.size() > 1) {
+            for (DatasetSnapshot part : files) {
+                List<String> names = new ArrayList<>(part.getDepartmentAverages().keySet());
+                plan.add(() -> Page.chart("File: " + part.getSourceName(), ChartRenderer.CATEGORY_LABEL,
+                        part.getDepartmentAverages(), null));
+                tablePages(plan, "File: " + part.getSourceName(), "Final scores per department", "Department",
+                        names.size(), i -> statsRow(names.get(i), part.getDepartmentStats().get(names.get(i))));
+            }
+        }
+        return plan;
+    }
+
+    private interface RowSource {
+        String[] row(int index);
+    }
+
+    // Adds the pages of a table with count rows, ROWS_PER_PAGE to a page.
+    private static void tablePages(List<Callable<Page>> plan, String heading, String subheading, String firstHeader,
+                                   int count, RowSource source) {
+        int pages = Math.max(1, (count + ROWS_PER_PAGE - 1) / ROWS_PER_PAGE);
+        for (int p = 0; p < pages; p++) {
+            int from = p * ROWS_PER_PAGE;
+            int to = Math.min(count, from + ROWS_PER_PAGE);
+            String pageHeading = p == 0 ? heading : heading + " (continued)";
+            plan.add(() -> {
+                List<String[]> rows = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    rows.add(source.row(i));
+                }
+                return Page.table(pageHeading, subheading, firstHeader, rows);
+            });
+        }
+    }
+
+    private static String[] statsRow(String name, ScoreAccumulator stats) {
+        double[] quartiles = stats.getQuantiles(0.25, 0.50, 0.75);
+        return new String[] {
+            name,
+            String.valueOf(stats.getCount()),
+            String.format("%.2f", stats.getAverage()),
+            String.format("%.2f", stats.getStandardDeviation()),
+            String.format("%.2f", stats.getMin()),
+            String.format("%.2f", quartiles[0]),
+            String.format("%.2f", quartiles[1]),
+            String.format("%.2f", quartiles[2]),
+            String.format("%.2f", stats.getMax())
+        };
+    }
+
+    // Every department of one file in a single accumulator.
+    private static ScoreAccumulator combined(Map<String, ScoreAccumulator> stats) {
+        ScoreAccumulator all = new ScoreAccumulator();
+        for (ScoreAccumulator accumulator : stats.values()) {
+            all.merge(accumulator);
+        }
+        return all;
+    }
+
+    private static long rowCount(Map<String, ScoreAccumulator> stats) {
+        long rows = 0;
+        for (ScoreAccumulator accumulator : stats.values()) {
+            rows += accumulator.getCount();
+        }
+        return rows;
+    }
+
+    private void draw(PDPageContentStream out, Page page, int number, int pageCount) throws IOException {
+        if (page.chart != null) {
+            PDRectangle area = new PDRectangle(0, FOOTER, PAGE.getWidth(), PAGE.getHeight() - FOOTER);
+            PdfChartRenderer.draw(out, area, page.heading, page.categoryLabel, ChartRenderer.VALUE_LABEL,
+                    page.chart, true, page.department);
+        } else {
+            drawTable(out, page);
+        }
+
+        // Footer
+        out.setNonStrokingColor(0.3f, 0.3f, 0.3f);
+        PdfChartRenderer.text(out, PdfChartRenderer.FONT, 9, footer, MARGIN, FOOTER / 2);
+        String pageLabel = "Page " + number + " of " + pageCount;
+        PdfChartRenderer.text(out, PdfChartRenderer.FONT, 9, pageLabel,
+                PAGE.getWidth() - MARGIN - PdfChartRenderer.width(PdfChartRenderer.FONT, 9, pageLabel), FOOTER / 2);
+    }
+
+    private static void drawTable(PDPageContentStream out, Page page) throws IOException {
+        float y = PAGE.getHeight() - MARGIN;
+        out.setNonStrokingColor(0f, 0f, 0f);
+        PdfChartRenderer.text(out, PdfChartRenderer.BOLD, 16, page.heading, MARGIN, y - 16);
+        y -= 22;
+        if (page.subheading != null) {
+            out.setNonStrokingColor(0.3f, 0.3f, 0.3f);
+            PdfChartRenderer.text(out, PdfChartRenderer.FONT, 10, page.subheading, MARGIN, y - 12);
+        }
+        y -= 28;
+
+        float right = PAGE.getWidth() - MARGIN;
+        float nameWidth = right - MARGIN - STAT_HEADERS.length * STAT_COLUMN_WIDTH;
+        String[] header = new String[STAT_HEADERS.length + 1];
+        header[0] = page.firstHeader;
+        System.arraycopy(STAT_HEADERS, 0, header, 1, STAT_HEADERS.length);
+        row(out, header, PdfChartRenderer.BOLD, y, nameWidth);
+        out.setStrokingColor(0f, 0f, 0f);
+        out.setLineWidth(0.8f);
+        out.moveTo(MARGIN, y - 4);
+        out.lineTo(right, y - 4);
+        out.stroke();
+
+        for (int i = 0; i < page.rows.size(); i++) {
+            y -= ROW_HEIGHT;
+            if (i % 2 == 1) {
+                out.setNonStrokingColor(0.93f, 0.93f, 0.93f);
+                out.addRect(MARGIN, y - 4, right - MARGIN, ROW_HEIGHT);
+                out.fill();
+            }
+            row(out, page.rows.get(i), PdfChartRenderer.FONT, y, nameWidth);
+        }
+    }
+
+    // Name left-aligned (cut to fit), statistics right-aligned in fixed columns.
+    private static void row(PDPageContentStream out, String[] cells, PDFont font,
+                            float y, float nameWidth) throws IOException {
+        float size = 10;
+        out.setNonStrokingColor(0f, 0f, 0f);
+        PdfChartRenderer.text(out, font, size, fit(font, size, cells[0], nameWidth - 10), MARGIN + 4, y);
+        for (int c = 1; c < cells.length; c++) {
+            float columnRight = MARGIN + nameWidth + c * STAT_COLUMN_WIDTH - 4;
+            PdfChartRenderer.text(out, font, size, cells[c],
+                    columnRight - PdfChartRenderer.width(font, size, cells[c]), y);
+        }
+    }
+
+    private static String fit(PDFont font, float size, String text, float width)
+            throws IOException {
+        if (PdfChartRenderer.width(font, size, text) <= width) {
+            return text;
+        }
+        int end = text.length();
+        while (end > 0 && PdfChartRenderer.width(font, size, text.substring(0, end) + "...") > width) {
+            end--;
+        }
+        return text.substring(0, end) + "...";
+    }
+}
@@ -0,0 +1,282 @@
+package DepartmentFinalScoreChart;
+
+import java.util.Arrays;
+
+// Compressed set of row numbers in the style of Roaring bitmaps. Rows are split
+// by their high 16 bits into containers of up to 65536 rows. A sparse container
+// is a sorted char[] of the low 16 bits; once it holds more than ARRAY_LIMIT
+// rows it becomes a 1024-word bitmap, which is smaller from that point on.
+// AND and OR work container by container on the matching high keys.
+//
+// Bitmaps are filled with add() in ascending row order and not modified after
+// that; and() and or() return new bitmaps.
+final class RowBitmap {
+
+    static final int ARRAY_LIMIT = 4096;
+    private static final int WORDS = 1024;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size; // containers in use
+
+    // One container: exactly one of values and words is set.
+    private static final class Container {
+        char[] values;   // sorted low bits of an array container
+        long[] words;    // bits of a bitmap container
+        int cardinality;
+
+        Container(char[] values, long[] words, int cardinality) {
+            this.values = values;
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+    }
+
+    // Adds a row larger than every row added so far.
+    void add(int row) {
+        char key = (char) (row >>> 16);
+        char low = (char) row;
+        Container container;
+        if (size > 0 && keys[size - 1] == key) {
+            container = containers[size - 1];
+        } else {
+            if (size > 0 && keys[size - 1] > key) {
+                throw new IllegalArgumentException("Rows must be added in ascending order");
+            }
+            container = new Container(new char[16], null, 0);
+            append(key, container);
+        }
+        if (container.words != null) {
+            container.words[low >>> 6] |= 1L << low;
+            container.cardinality++;
+            return;
+        }
+        if (container.cardinality > 0 && container.values[container.cardinality - 1] >= low) {
+            throw new IllegalArgumentException("Rows must be added in ascending order");
+        }
+        if (container.cardinality == ARRAY_LIMIT) {
+            container.words = toWords(container.values, container.cardinality);
+            container.values = null;
+            container.words[low >>> 6] |= 1L << low;
+            container.cardinality++;
+            return;
+        }
+        if (container.cardinality == container.values.length) {
+            container.values = Arrays.copyOf(container.values, Math.min(ARRAY_LIMIT, container.values.length * 2));
+        }
+        container.values[container.cardinality++] = low;
+    }
+
+    int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality;
+        }
+        return cardinality;
+    }
+
+    boolean contains(int row) {
+        int i = Arrays.binarySearch(keys, 0, size, (char) (row >>> 16));
+        if (i < 0) {
+            return false;
+        }
+        Container container = containers[i];
+        char low = (char) row;
+        if (container.words != null) {
+            return (container.words[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch(container.values, 0, container.cardinality, low) >= 0;
+    }
+
+    // Number of containers; rows(i, buffer) lists the rows of each in turn.
+    int containerCount() {
+        return size;
+    }
+
+    // Writes the rows of container i in ascending order into buffer, which must
+    // hold 65536 entries, and returns how many were written.
+    int rows(int i, int[] buffer) {
+        Container container = containers[i];
+        int high = keys[i] << 16;
+        if (container.words == null) {
+            for (int j = 0; j < container.cardinality; j++) {
+                buffer[j] = high | container.values[j];
+            }
+            return container.cardinality;
+        }
+        int n = 0;
+        long[] words = container.words;
+        for (int w = 0; w < WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                buffer[n++] = high | (w << 6) | Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return n;
+    }
+
+    // Rows in both bitmaps.
+    RowBitmap and(RowBitmap other) {
+        RowBitmap result = new RowBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = and(containers[i], other.containers[j]);
+                if (container.cardinality > 0) {
+                    result.append(keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // Rows in either bitmap.
+    RowBitmap or(RowBitmap other) {
+        RowBitmap result = new RowBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                result.append(keys[i], copy(containers[i]));
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], copy(other.containers[j]));
+                j++;
+            } else {
+                result.append(keys[i], or(containers[i], other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    private void append(char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        keys[size] = key;
+        containers[size] = container;
+        size++;
+    }
+
+    private static Container and(Container a, Container b) {
+        if (a.words != null && b.words != null) {
+            long[] words = new long[WORDS];
+            int cardinality = 0;
+            for (int w = 0; w < WORDS; w++) {
+                words[w] = a.words[w] & b.words[w];
+                cardinality += Long.bitCount(words[w]);
+            }
+            return cardinality > ARRAY_LIMIT
+                ? new Container(null, words, cardinality)
+                : new Container(toValues(words, cardinality), null, cardinality);
+        }
+        if (a.words != null) {
+            Container swap = a;
+            a = b;
+            b = swap;
+        }
+        // a is an array container: keep its values that are also in b
+        char[] values = new char[a.cardinality];
+        int n = 0;
+        if (b.words != null) {
+            for (int i = 0; i < a.cardinality; i++) {
+                char low = a.values[i];
+                if ((b.words[low >>> 6] & (1L << low)) != 0) {
+                    values[n++] = low;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < a.cardinality && j < b.cardinality) {
+                if (a.values[i] < b.values[j]) {
+                    i++;
+                } else if (a.values[i] > b.values[j]) {
+                    j++;
+                } else {
+                    values[n++] = a.values[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return new Container(values, null, n);
+    }
+
+    private static Container or(Container a, Container b) {
+        if (a.words == null && b.words == null && a.cardinality + b.cardinality <= ARRAY_LIMIT) {
+            char[] values = new char[a.cardinality + b.cardinality];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.cardinality || j < b.cardinality) {
+                if (j == b.cardinality || (i < a.cardinality && a.values[i] < b.values[j])) {
+                    values[n++] = a.values[i++];
+                } else if (i == a.cardinality || a.values[i] > b.values[j]) {
+                    values[n++] = b.values[j++];
+                } else {
+                    values[n++] = a.values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return new Container(values, null, n);
+        }
+        long[] words = a.words != null ? a.words.clone() : toWords(a.values, a.cardinality);
+        if (b.words != null) {
+            for (int w = 0; w < WORDS; w++) {
+                words[w] |= b.words[w];
+            }
+        } else {
+            for (int i = 0; i < b.cardinality; i++) {
+                char low = b.values[i];
+                words[low >>> 6] |= 1L << low;
+            }
+        }
+        int cardinality = 0;
+        for (long word : words) {
+            cardinality += Long.bitCount(word);
+        }
+        return cardinality > ARRAY_LIMIT
+            ? new Container(null, words, cardinality)
+            : new Container(toValues(words, cardinality), null, cardinality);
+    }
+
+    private static Container copy(Container container) {
+        return container.words != null
+            ? new Container(null, container.words.clone(), container.cardinality)
+            : new Container(Arrays.copyOf(container.values, container.cardinality), null, container.cardinality);
+    }
+
+    private static long[] toWords(char[] values, int cardinality) {
+        long[] words = new long[WORDS];
+        for (int i = 0; i < cardinality; i++) {
+            words[values[i] >>> 6] |= 1L << values[i];
+        }
+        return words;
+    }
+
+    private static char[] toValues(long[] words, int cardinality) {
+        char[] values = new char[cardinality];
+        int n = 0;
+        for (int w = 0; w < WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                values[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return values;
+    }
+}
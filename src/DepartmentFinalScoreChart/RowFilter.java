@@ -0,0 +1,103 @@
+package DepartmentFinalScoreChart;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// One condition of the drill-down filter: a categorical column equal to any of
+// a set of values, or a numeric column between min and max, each end inclusive
+// or exclusive (and either may be infinite). Conditions are evaluated on a
+// BitmapIndex; a list of them is ANDed.
+final class RowFilter {
+
+    private final Column column;
+    private final List<String> values; // categorical; GroupBy.MISSING stands for missing values
+    private final double min;
+    private final double max;
+    private final boolean minInclusive;
+    private final boolean maxInclusive;
+
+    private RowFilter(Column column, List<String> values, double min, boolean minInclusive,
+                      double max, boolean maxInclusive) {
+        this.column = column;
+        this.values = values;
+        this.min = min;
+        this.minInclusive = minInclusive;
+        this.max = max;
+        this.maxInclusive = maxInclusive;
+    }
+
+    static RowFilter oneOf(Column column, Collection<String> values) {
+        if (!column.isCategorical()) {
+            throw new IllegalArgumentException(column + " is not a categorical column");
+        }
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("No values chosen for " + column);
+        }
+        return new RowFilter(column, List.copyOf(values), Double.NaN, true, Double.NaN, true);
+    }
+
+    // e.g. between(ATTENDANCE, -Infinity, true, 60, false) for "Attendance (%) < 60"
+    static RowFilter between(Column column, double min, boolean minInclusive, double max, boolean maxInclusive) {
+        if (column.isCategorical()) {
+            throw new IllegalArgumentException(column + " is not a numeric column");
+        }
+        if (Double.isNaN(min) || Double.isNaN(max) || min > max
+                || (min == max && !(minInclusive && maxInclusive))) {
+            throw new IllegalArgumentException("Invalid range for " + column);
+        }
+        return new RowFilter(column, null, min, minInclusive, max, maxInclusive);
+    }
+
+    Column getColumn() {
+        return column;
+    }
+
+    RowBitmap select(BitmapIndex index) {
+        if (values == null) {
+            return index.range(column, min, minInclusive, max, maxInclusive);
+        }
+        RowBitmap rows = new RowBitmap();
+        for (String value : values) {
+            rows = rows.or(index.equalTo(column, value.equals(GroupBy.MISSING) ? null : value));
+        }
+        return rows;
+    }
+
+    // Rows passing every filter; all rows when there are none.
+    static RowBitmap selectAll(List<RowFilter> filters, BitmapIndex index) {
+        List<RowBitmap> selections = new ArrayList<>();
+        for (RowFilter filter : filters) {
+            selections.add(filter.select(index));
+        }
+        // Intersect the smallest first, so the intermediate results stay small
+        selections.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+        RowBitmap rows = index.allRows();
+        for (RowBitmap selection : selections) {
+            rows = rows.and(selection);
+        }
+        return rows;
+    }
+
+    // e.g. "Age 18 - 20", "10 < Age <= 20", "Attendance (%) < 60", "Internet_Access_at_Home = No"
+    @Override
+    public String toString() {
+        if (values != null) {
+            return column + " = " + String.join(", ", values);
+        }
+        if (min == Double.NEGATIVE_INFINITY) {
+            return column + (maxInclusive ? " <= " : " < ") + format(max);
+        }
+        if (max == Double.POSITIVE_INFINITY) {
+            return column + (minInclusive ? " >= " : " > ") + format(min);
+        }
+        if (minInclusive && maxInclusive) {
+            return column + " " + format(min) + " - " + format(max);
+        }
+        return format(min) + (minInclusive ? " <= " : " < ") + column + (maxInclusive ? " <= " : " < ") + format(max);
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
@@ -0,0 +1,118 @@
+package DepartmentFinalScoreChart;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Running count, sum, sum of squares, min and max of the scores of one
+// department, plus a QuantileSketch for medians and percentiles. Memory is
+// bounded per department, and partial accumulators built by different workers
+// or files are combined with merge.
+final class ScoreAccumulator {
+    private long count;
+    private double sum;
+    private double sumOfSquares;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private final QuantileSketch sketch;
+
+    ScoreAccumulator() {
+        sketch = new QuantileSketch();
+    }
+
+    // Restores an accumulator from its saved state (see SnapshotCache).
+    ScoreAccumulator(long count, double sum, double sumOfSquares, double min, double max, QuantileSketch sketch) {
+        this.sketch = sketch;
+        this.count = count;
+        this.sum = sum;
+        this.sumOfSquares = sumOfSquares;
+        if (count > 0) {
+            this.min = min;
+            this.max = max;
+        }
+    }
+
+    void add(double score) {
+        count++;
+        sum += score;
+        sumOfSquares += score * score;
+        if (score < min) {
+            min = score;
+        }
+        if (score > max) {
+            max = score;
+        }
+        sketch.add(score);
+    }
+
+    void merge(ScoreAccumulator other) {
+        count += other.count;
+        sum += other.sum;
+        sumOfSquares += other.sumOfSquares;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sketch.merge(other.sketch);
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    double getSum() {
+        return sum;
+    }
+
+    double getSumOfSquares() {
+        return sumOfSquares;
+    }
+
+    double getAverage() {
+        return count == 0 ? 0.0 : sum / count;
+    }
+
+    double getMin() {
+        return count == 0 ? 0.0 : min;
+    }
+
+    double getMax() {
+        return count == 0 ? 0.0 : max;
+    }
+
+    // Estimated score at rank q (0..1), e.g. 0.5 for the median.
+    double getQuantile(double q) {
+        return sketch.quantile(q);
+    }
+
+    // Estimates of several quantiles at once.
+    double[] getQuantiles(double... qs) {
+        return sketch.quantiles(qs);
+    }
+
+    QuantileSketch getSketch() {
+        return sketch;
+    }
+
+    // Population standard deviation.
+    double getStandardDeviation() {
+        if (count == 0) {
+            return 0.0;
+        }
+        double mean = sum / count;
+        return Math.sqrt(Math.max(0.0, sumOfSquares / count - mean * mean));
+    }
+
+    // Merges every accumulator of source into target, department by department.
+    static void mergeInto(Map<String, ScoreAccumulator> target, Map<String, ScoreAccumulator> source) {
+        for (Map.Entry<String, ScoreAccumulator> entry : source.entrySet()) {
+            target.computeIfAbsent(entry.getKey(), k -> new ScoreAccumulator()).merge(entry.getValue());
+        }
+    }
+
+    // Department -> average final score.
+    static Map<String, Double> averages(Map<String, ScoreAccumulator> accumulators) {
+        Map<String, Double> averages = new HashMap<>();
+        for (Map.Entry<String, ScoreAccumulator> entry : accumulators.entrySet()) {
+            averages.put(entry.getKey(), entry.getValue().getAverage());
+        }
+        return averages;
+    }
+}
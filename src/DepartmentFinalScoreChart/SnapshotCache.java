@@ -0,0 +1,614 @@
+package DepartmentFinalScoreChart;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+// Binary columnar copy of a loaded CSV, so reopening the same file maps the
+// columns back instead of parsing text. One cache file per source path lives in
+// ~/.cache/DepartmentFinalScoreChart (or -Ddepartmentscore.cacheDir=...); set
+// -Ddepartmentscore.cache=false to turn the cache off.
+//
+// The directory is kept under a budget, -Ddepartmentscore.cacheMB (default
+// 2048): after every write the least recently used entries (by mtime, which a
+// cache hit refreshes) are deleted until the rest fit, together with entries
+// whose source file no longer exists and temporary files of interrupted writes.
+// An entry found stale by read (its source was edited) is deleted right away.
+//
+// An entry is only used when the source path, size, modification time and
+// content hash all match, so an edited or replaced CSV is parsed again and its
+// entry overwritten. The content hash covers the whole file up to 64 MB; above
+// that it covers the first and last MB and 64 evenly spaced 64 KB blocks, so
+// checking an entry never reads more than a few MB of a multi-GB source.
+//
+// Layout (little-endian): magic, version, source path, size, mtime, hash, the
+// per-department accumulators with their quantile sketch levels, the bad-row
+// counts and samples of LoadDiagnostics, then optionally the table: row count, and for
+// each stored column its ordinal followed by its dictionary and int codes,
+// its float values, or (Final_Score) its double values.
+final class SnapshotCache {
+
+    private static final int MAGIC = 0x43534644; // "DFSC"
+    private static final int VERSION = 3;
+
+    private static final long FULL_HASH_LIMIT = 64L * 1024 * 1024;
+    private static final int EDGE_BLOCK = 1024 * 1024;
+    private static final int SAMPLE_BLOCK = 64 * 1024;
+    private static final int SAMPLE_COUNT = 64;
+
+    static final long DEFAULT_BUDGET_MB = 2048;
+    private static final String SUFFIX = ".cols";
+    private static final long STALE_TEMP_MILLIS = 60 * 60 * 1000L; // older temp files belong to no live write
+
+    private static final int WINDOW = 1 << 20;       // scalar reads and writes
+    private static final int MAX_ARRAY_MAP = 1 << 28; // bytes mapped per bulk copy
+
+    private SnapshotCache() {
+    }
+
+    static boolean isEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty("departmentscore.cache"));
+    }
+
+    static File directory() {
+        String configured = System.getProperty("departmentscore.cacheDir");
+        if (configured != null) {
+            return new File(configured);
+        }
+        return new File(System.getProperty("user.home"), ".cache" + File.separator + "DepartmentFinalScoreChart");
+    }
+
+    static long budget() {
+        String configured = System.getProperty("departmentscore.cacheMB");
+        long megabytes = DEFAULT_BUDGET_MB;
+        if (configured != null) {
+            try {
+                megabytes = Math.max(0, Long.parseLong(configured.trim()));
+            } catch (NumberFormatException e) {
+                // keep the default
+            }
+        }
+        return megabytes * 1024 * 1024;
+    }
+
+    // Identity of a source file at the time it was read.
+    static final class Key {
+        final String path;
+        final long size;
+        final long modified;
+        final long hash;
+
+        private Key(String path, long size, long modified, long hash) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+
+        static Key of(File source) throws IOException {
+            File canonical = source.getCanonicalFile();
+            long size = canonical.length();
+            long modified = canonical.lastModified();
+            return new Key(canonical.getPath(), size, modified, contentHash(canonical, size));
+        }
+
+        // True while the source still has the size and mtime it had when the key was made.
+        boolean isCurrent() {
+            File file = new File(path);
+            return file.length() == size && file.lastModified() == modified;
+        }
+
+        boolean matches(Key other) {
+            return path.equals(other.path) && size == other.size && modified == other.modified
+                    && hash == other.hash;
+        }
+    }
+
+    // Returns the cached snapshot of the source, or null when there is no valid entry.
+    // The table is only read when withTable is set; if the entry has no table then
+    // null is returned so the caller parses the file with every column.
+    static DatasetSnapshot read(Key key, boolean withTable) {
+        File cacheFile = cacheFile(key);
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+        boolean stale = false;
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            Input in = new Input(channel);
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                stale = true; // written by another version
+                return null;
+            }
+            Key stored = new Key(in.getString(), in.getLong(), in.getLong(), in.getLong());
+            if (!stored.matches(key)) {
+                // Same path, other contents: the source was edited or replaced. (Another
+                // path whose file name and CRC collide keeps its entry.)
+                stale = stored.path.equals(key.path);
+                return null;
+            }
+            cacheFile.setLastModified(System.currentTimeMillis()); // most recently used
+            Map<String, ScoreAccumulator> stats = new HashMap<>();
+            int departments = in.getInt();
+            for (int i = 0; i < departments; i++) {
+                String department = in.getString();
+                long count = in.getLong();
+                double sum = in.getDouble();
+                double sumOfSquares = in.getDouble();
+                double min = in.getDouble();
+                double max = in.getDouble();
+                double[][] levels = new double[in.getInt()][];
+                for (int h = 0; h < levels.length; h++) {
+                    levels[h] = new double[in.getInt()];
+                    in.getDoubles(levels[h], levels[h].length);
+                }
+                QuantileSketch sketch = QuantileSketch.restore(count, min, max, levels);
+                stats.put(department, new ScoreAccumulator(count, sum, sumOfSquares, min, max, sketch));
+            }
+            LoadDiagnostics diagnostics = readDiagnostics(in, new File(key.path).getName());
+            boolean hasTable = in.getInt() == 1;
+            if (!withTable) {
+                return new DatasetSnapshot(new File(key.path).getName(), null, stats, diagnostics);
+            }
+            if (!hasTable) {
+                return null;
+            }
+            StudentTable table = readTable(in);
+            return new DatasetSnapshot(new File(key.path).getName(), table, stats, diagnostics);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable cache " + cacheFile + ": " + e);
+            stale = true;
+            return null;
+        } finally {
+            if (stale) {
+                delete(cacheFile.toPath());
+            }
+        }
+    }
+
+    private static LoadDiagnostics readDiagnostics(Input in, String source) throws IOException {
+        long[] counts = new long[in.getInt()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = in.getLong();
+        }
+        LoadDiagnostics.Category[] categories = LoadDiagnostics.Category.values();
+        List<LoadDiagnostics.Sample> samples = new ArrayList<>();
+        int sampleCount = in.getInt();
+        for (int i = 0; i < sampleCount; i++) {
+            LoadDiagnostics.Category category = categories[in.getInt()];
+            long line = in.getLong();
+            samples.add(new LoadDiagnostics.Sample(source, category, line, in.getString()));
+        }
+        return LoadDiagnostics.restore(source, LoadDiagnostics.configuredBudget(), counts, samples);
+    }
+
+    private static StudentTable readTable(Input in) throws IOException {
+        int rowCount = in.getInt();
+        Map<Column, int[]> codes = new EnumMap<>(Column.class);
+        Map<Column, CategoryDictionary> dictionaries = new EnumMap<>(Column.class);
+        Map<Column, float[]> numbers = new EnumMap<>(Column.class);
+        double[] finalScores = null;
+        Column[] all = Column.values();
+        int columns = in.getInt();
+        for (int c = 0; c < columns; c++) {
+            Column column = all[in.getInt()];
+            if (column == Column.FINAL_SCORE) {
+                finalScores = new double[rowCount];
+                in.getDoubles(finalScores, rowCount);
+            } else if (column.isCategorical()) {
+                CategoryDictionary dictionary = new CategoryDictionary();
+                int size = in.getInt();
+                for (int i = 0; i < size; i++) {
+                    dictionary.encode(in.getString());
+                }
+                int[] values = new int[rowCount];
+                in.getInts(values, rowCount);
+                dictionaries.put(column, dictionary);
+                codes.put(column, values);
+            } else {
+                float[] values = new float[rowCount];
+                in.getFloats(values, rowCount);
+                numbers.put(column, values);
+            }
+        }
+        if (finalScores == null || !dictionaries.containsKey(Column.DEPARTMENT)) {
+            throw new IOException("Cached table is missing Department or Final_Score");
+        }
+        return new StudentTable(rowCount, codes, dictionaries, numbers, finalScores);
+    }
+
+    // Saves snapshot as the entry for the source identified by key. The entry is
+    // written to a temporary file and moved into place, so readers never see a
+    // partial file; nothing is written if the source changed during the load.
+    static void write(Key key, DatasetSnapshot snapshot) {
+        if (!key.isCurrent()) {
+            return;
+        }
+        File directory = directory();
+        Path temp = null;
+        try {
+            Files.createDirectories(directory.toPath());
+            temp = Files.createTempFile(directory.toPath(), "entry", ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                Output out = new Output(channel);
+                out.putInt(MAGIC);
+                out.putInt(VERSION);
+                out.putString(key.path);
+                out.putLong(key.size);
+                out.putLong(key.modified);
+                out.putLong(key.hash);
+                Map<String, ScoreAccumulator> stats = snapshot.getDepartmentStats();
+                out.putInt(stats.size());
+                for (Map.Entry<String, ScoreAccumulator> entry : stats.entrySet()) {
+                    ScoreAccumulator accumulator = entry.getValue();
+                    out.putString(entry.getKey());
+                    out.putLong(accumulator.getCount());
+                    out.putDouble(accumulator.getSum());
+                    out.putDouble(accumulator.getSumOfSquares());
+                    out.putDouble(accumulator.getMin());
+                    out.putDouble(accumulator.getMax());
+                    QuantileSketch sketch = accumulator.getSketch();
+                    out.putInt(sketch.levelCount());
+                    for (int h = 0; h < sketch.levelCount(); h++) {
+                        double[] level = sketch.levelValues(h);
+                        out.putInt(level.length);
+                        out.putDoubles(level, level.length);
+                    }
+                }
+                writeDiagnostics(out, snapshot.getDiagnostics());
+                StudentTable table = snapshot.getTable();
+                out.putInt(table != null ? 1 : 0);
+                if (table != null) {
+                    writeTable(out, table);
+                }
+                out.flush();
+            }
+            try {
+                Files.move(temp, cacheFile(key).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, cacheFile(key).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+        } catch (IOException e) {
+            System.err.println("Could not write cache for " + key.path + ": " + e.getMessage());
+        } finally {
+            if (temp != null) {
+                delete(temp); // or left for the next prune
+            }
+        }
+        prune(directory, budget(), cacheFile(key));
+    }
+
+    // Deletes entries of missing sources and stale temporary files, then the
+    // least recently used entries until the rest fit in budget bytes. The entry
+    // just written goes last, only when it alone is larger than the budget.
+    static void prune(File directory, long budget, File justWritten) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<File> entries = new ArrayList<>();
+        long total = 0;
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(".tmp")) {
+                if (now - file.lastModified() > STALE_TEMP_MILLIS) {
+                    delete(file.toPath());
+                }
+            } else if (name.endsWith(SUFFIX) && !file.equals(justWritten) && !sourceExists(file)) {
+                delete(file.toPath());
+            } else if (name.endsWith(SUFFIX)) {
+                entries.add(file);
+                total += file.length();
+            }
+        }
+        if (total <= budget) {
+            return;
+        }
+        entries.sort((a, b) -> a.equals(justWritten) ? 1 : b.equals(justWritten) ? -1
+                : Long.compare(a.lastModified(), b.lastModified()));
+        for (File entry : entries) {
+            if (total <= budget) {
+                break;
+            }
+            long length = entry.length();
+            if (delete(entry.toPath())) {
+                total -= length;
+            }
+        }
+    }
+
+    // False when the entry's header names a source that is gone; true when it
+    // cannot tell (an unreadable entry is left to read, which deletes it).
+    private static boolean sourceExists(File entry) {
+        try (FileChannel channel = FileChannel.open(entry.toPath(), StandardOpenOption.READ)) {
+            Input in = new Input(channel);
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                return false;
+            }
+            return new File(in.getString()).isFile();
+        } catch (IOException | RuntimeException e) {
+            return true;
+        }
+    }
+
+    private static boolean delete(Path path) {
+        try {
+            return Files.deleteIfExists(path);
+        } catch (IOException e) {
+            return false; // in use (Windows) or already gone; tried again on the next prune
+        }
+    }
+
+    private static void writeDiagnostics(Output out, LoadDiagnostics diagnostics) throws IOException {
+        LoadDiagnostics.Category[] categories = LoadDiagnostics.Category.values();
+        out.putInt(categories.length);
+        for (LoadDiagnostics.Category category : categories) {
+            out.putLong(diagnostics.getCount(category));
+        }
+        List<LoadDiagnostics.Sample> samples = diagnostics.getSamples();
+        out.putInt(samples.size());
+        for (LoadDiagnostics.Sample sample : samples) {
+            out.putInt(sample.category.ordinal());
+            out.putLong(sample.line);
+            out.putString(sample.text);
+        }
+    }
+
+    private static void writeTable(Output out, StudentTable table) throws IOException {
+        int rowCount = table.getRowCount();
+        out.putInt(rowCount);
+        int columns = 0;
+        for (Column column : Column.values()) {
+            if (table.has(column)) {
+                columns++;
+            }
+        }
+        out.putInt(columns);
+        for (Column column : Column.values()) {
+            if (!table.has(column)) {
+                continue;
+            }
+            out.putInt(column.ordinal());
+            if (column == Column.FINAL_SCORE) {
+                out.putDoubles(table.finalScores(), rowCount);
+            } else if (column.isCategorical()) {
+                CategoryDictionary dictionary = table.dictionary(column);
+                out.putInt(dictionary.size());
+                for (int code = 0; code < dictionary.size(); code++) {
+                    out.putString(dictionary.decode(code));
+                }
+                out.putInts(table.codes(column), rowCount);
+            } else {
+                out.putFloats(table.floats(column), rowCount);
+            }
+        }
+    }
+
+    // Cache file for a source path: its name plus a hash of the full path.
+    private static File cacheFile(Key key) {
+        String name = new File(key.path).getName().replaceAll("[^A-Za-z0-9._-]", "_");
+        CRC32C crc = new CRC32C();
+        crc.update(key.path.getBytes(StandardCharsets.UTF_8));
+        return new File(directory(), String.format("%s-%08x%s", name, crc.getValue(), SUFFIX));
+    }
+
+    // CRC32C of the size and the whole file, or of sampled blocks for large files.
+    static long contentHash(File file, long size) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer sizeBytes = ByteBuffer.allocate(Long.BYTES).putLong(0, size);
+        crc.update(sizeBytes);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (size <= FULL_HASH_LIMIT) {
+                hashRange(channel, crc, 0, size);
+            } else {
+                hashRange(channel, crc, 0, EDGE_BLOCK);
+                long span = size - 2L * EDGE_BLOCK - SAMPLE_BLOCK;
+                for (int i = 0; i < SAMPLE_COUNT; i++) {
+                    hashRange(channel, crc, EDGE_BLOCK + span * i / (SAMPLE_COUNT - 1), SAMPLE_BLOCK);
+                }
+                hashRange(channel, crc, size - EDGE_BLOCK, EDGE_BLOCK);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static void hashRange(FileChannel channel, CRC32C crc, long from, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(WINDOW, Math.max(1, length)));
+        long position = from;
+        long end = from + length;
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                break;
+            }
+            buffer.flip();
+            crc.update(buffer);
+            position += n;
+        }
+    }
+
+    // Sequential reader over a memory-mapped cache file. Arrays are bulk-copied
+    // out of mapped regions, so a table costs one memcpy per column.
+    private static final class Input {
+        private final FileChannel channel;
+        private final long size;
+        private ByteBuffer window;
+        private long windowStart;
+        private long position;
+
+        Input(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        // Maps [position, position + bytes) into window and returns its offset there.
+        private int require(int bytes) throws IOException {
+            if (window == null || position < windowStart || position + bytes > windowStart + window.limit()) {
+                if (position + bytes > size) {
+                    throw new EOFException("Cache file is truncated");
+                }
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(size - position, Math.max(bytes, WINDOW))).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            int offset = (int) (position - windowStart);
+            position += bytes;
+            return offset;
+        }
+
+        int getInt() throws IOException {
+            int at = require(Integer.BYTES);
+            return window.getInt(at);
+        }
+
+        long getLong() throws IOException {
+            int at = require(Long.BYTES);
+            return window.getLong(at);
+        }
+
+        double getDouble() throws IOException {
+            int at = require(Double.BYTES);
+            return window.getDouble(at);
+        }
+
+        String getString() throws IOException {
+            int length = getInt();
+            if (length < 0 || length > size) {
+                throw new IOException("Corrupt string length " + length);
+            }
+            byte[] bytes = new byte[length];
+            int at = require(length);
+            window.get(at, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        void getInts(int[] target, int count) throws IOException {
+            for (int done = 0; done < count; ) {
+                int n = Math.min(count - done, MAX_ARRAY_MAP / Integer.BYTES);
+                region(n * Integer.BYTES).asIntBuffer().get(target, done, n);
+                done += n;
+            }
+        }
+
+        void getFloats(float[] target, int count) throws IOException {
+            for (int done = 0; done < count; ) {
+                int n = Math.min(count - done, MAX_ARRAY_MAP / Float.BYTES);
+                region(n * Float.BYTES).asFloatBuffer().get(target, done, n);
+                done += n;
+            }
+        }
+
+        void getDoubles(double[] target, int count) throws IOException {
+            for (int done = 0; done < count; ) {
+                int n = Math.min(count - done, MAX_ARRAY_MAP / Double.BYTES);
+                region(n * Double.BYTES).asDoubleBuffer().get(target, done, n);
+                done += n;
+            }
+        }
+
+        // The next bytes of the file as a little-endian view.
+        private ByteBuffer region(int bytes) throws IOException {
+            int at = require(bytes);
+            return window.slice(at, bytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    // Sequential writer through a reusable direct buffer.
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WINDOW).order(ByteOrder.LITTLE_ENDIAN);
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putDouble(double value) throws IOException {
+            ensure(Double.BYTES);
+            buffer.putDouble(value);
+        }
+
+        void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            for (int done = 0; done < bytes.length; ) {
+                ensure(1);
+                int n = Math.min(bytes.length - done, buffer.remaining());
+                buffer.put(bytes, done, n);
+                done += n;
+            }
+        }
+
+        void putInts(int[] values, int count) throws IOException {
+            for (int done = 0; done < count; ) {
+                ensure(Integer.BYTES);
+                int n = Math.min(count - done, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, done, n);
+                buffer.position(buffer.position() + n * Integer.BYTES);
+                done += n;
+            }
+        }
+
+        void putFloats(float[] values, int count) throws IOException {
+            for (int done = 0; done < count; ) {
+                ensure(Float.BYTES);
+                int n = Math.min(count - done, buffer.remaining() / Float.BYTES);
+                buffer.asFloatBuffer().put(values, done, n);
+                buffer.position(buffer.position() + n * Float.BYTES);
+                done += n;
+            }
+        }
+
+        void putDoubles(double[] values, int count) throws IOException {
+            for (int done = 0; done < count; ) {
+                ensure(Double.BYTES);
+                int n = Math.min(count - done, buffer.remaining() / Double.BYTES);
+                buffer.asDoubleBuffer().put(values, done, n);
+                buffer.position(buffer.position() + n * Double.BYTES);
+                done += n;
+            }
+        }
+    }
+}
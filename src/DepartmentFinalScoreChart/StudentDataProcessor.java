@@ -0,0 +1,509 @@
+package DepartmentFinalScoreChart;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Parsing and aggregation for the grading CSVs. Nothing here touches JavaFX,
+// so loads can run on any thread.
+final class StudentDataProcessor {
+
+    // How many rows are parsed between progress reports and cancellation checks
+    static final int PROGRESS_INTERVAL = 16 * 1024;
+
+    // Bytes read from the input at a time by the sequential byte-level loaders
+    private static final int READ_SIZE = 1024 * 1024;
+
+    // Slots selected on the tokenizer by every loader
+    static final int DEPARTMENT_SLOT = 0;
+    static final int FINAL_SCORE_SLOT = 1;
+
+    // Receives progress from a running load and tells it when to stop.
+    interface LoadMonitor {
+        LoadMonitor NONE = new LoadMonitor() {
+            @Override
+            public void progress(long rows, long bytesRead, long totalBytes) {
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+        };
+
+        void progress(long rows, long bytesRead, long totalBytes);
+
+        boolean isCancelled();
+    }
+
+    // Receives each valid row of a load; record gives access to any other selected columns.
+    interface RowSink {
+        void accept(CsvRecord record, String department, double finalScore);
+    }
+
+    // Loads one part of a multi-part load (a file, an archive entry), reporting
+    // its own progress to monitor.
+    interface PartLoader {
+        DatasetSnapshot load(int part, LoadMonitor monitor) throws IOException;
+    }
+
+    // Creates the sink for a load once the header has been matched to columns.
+    interface RowSinkFactory<S extends RowSink> {
+        S create(ColumnSelection selection);
+    }
+
+    // Tokenizer slots for a load: slot 0 is Department, slot 1 Final_Score, then
+    // every other stored Column found in the header when all columns are wanted.
+    static final class ColumnSelection {
+        final int[] selectedColumns;  // slot -> CSV column index
+        final int[] slotOfColumn;     // Column ordinal -> slot, or -1 when not read
+
+        private ColumnSelection(int[] selectedColumns, int[] slotOfColumn) {
+            this.selectedColumns = selectedColumns;
+            this.slotOfColumn = slotOfColumn;
+        }
+
+        static ColumnSelection of(String[] headers, boolean allColumns) throws IOException {
+            int[] required = findColumns(headers);
+            int[] slotOfColumn = new int[Column.values().length];
+            Arrays.fill(slotOfColumn, -1);
+            slotOfColumn[Column.DEPARTMENT.ordinal()] = DEPARTMENT_SLOT;
+            slotOfColumn[Column.FINAL_SCORE.ordinal()] = FINAL_SCORE_SLOT;
+            List<Integer> selected = new ArrayList<>(List.of(required[0], required[1]));
+            if (allColumns) {
+                for (Column column : Column.values()) {
+                    if (slotOfColumn[column.ordinal()] >= 0) {
+                        continue;
+                    }
+                    for (int i = 0; i < headers.length; i++) {
+                        if (headers[i].equals(column.getHeader())) {
+                            slotOfColumn[column.ordinal()] = selected.size();
+                            selected.add(i);
+                            break;
+                        }
+                    }
+                }
+            }
+            return new ColumnSelection(selected.stream().mapToInt(Integer::intValue).toArray(), slotOfColumn);
+        }
+    }
+
+    private StudentDataProcessor() {
+    }
+
+    // Loads a CSV file and computes its department statistics in the given mode.
+    // A valid SnapshotCache entry is used instead of parsing, and a parsed file
+    // is saved to the cache for next time.
+    // Throws CancellationException if the monitor reports cancellation.
+    static DatasetSnapshot load(File file, LoadMode mode, LoadMonitor monitor) throws IOException {
+        if (!SnapshotCache.isEnabled()) {
+            return loadUncached(file, mode, monitor);
+        }
+        LoadMode resolved = mode.resolve(file.length());
+        SnapshotCache.Key key = SnapshotCache.Key.of(file);
+        DatasetSnapshot cached = measured(file, file.getName() + " (cached)",
+                () -> SnapshotCache.read(key, resolved == LoadMode.FULL));
+        if (cached != null) {
+            cached.getDiagnostics().checkBudget();
+            monitor.progress(cached.getRowCount(), key.size, key.size);
+            return cached;
+        }
+        DatasetSnapshot snapshot = measured(file, file.getName(), () -> parse(file, resolved, monitor));
+        SnapshotCache.write(key, snapshot);
+        return snapshot;
+    }
+
+    // Like load, but neither reads nor writes SnapshotCache: for temporary files
+    // such as uploads, whose entries would never be used again.
+    static DatasetSnapshot loadUncached(File file, LoadMode mode, LoadMonitor monitor) throws IOException {
+        LoadMode resolved = mode.resolve(file.length());
+        return measured(file, file.getName(), () -> parse(file, resolved, monitor));
+    }
+
+    private interface LoadStep {
+        DatasetSnapshot run() throws IOException;
+    }
+
+    // Runs step as a PipelineMetrics load stage of file; a null result (cache miss) is not recorded.
+    private static DatasetSnapshot measured(File file, String source, LoadStep step) throws IOException {
+        PipelineMetrics.Span span = PipelineMetrics.begin(PipelineMetrics.Stage.LOAD, source);
+        DatasetSnapshot snapshot = step.run();
+        if (snapshot != null) {
+            span.end(file.length(), snapshot.getRowCount(), snapshot.getDiagnostics().getBadRows());
+        }
+        return snapshot;
+    }
+
+    private static DatasetSnapshot parse(File file, LoadMode mode, LoadMonitor monitor) throws IOException {
+        if (CompressedInput.Format.of(file) != CompressedInput.Format.NONE) {
+            return CompressedInput.load(file, mode, monitor);
+        }
+        switch (mode) {
+            case PARALLEL:
+                return ParallelCsvLoader.load(file, monitor);
+            case STREAMING:
+                return loadStreaming(file, monitor);
+            default:
+                return loadSequential(file, monitor);
+        }
+    }
+
+    // Loads several files concurrently, one task per file, and merges their
+    // statistics (and tables, when every file kept its rows) into one snapshot.
+    static DatasetSnapshot loadAll(List<File> files, LoadMode mode, LoadMonitor monitor) throws IOException {
+        if (files.size() == 1) {
+            return load(files.get(0), mode, monitor);
+        }
+        long totalBytes = 0;
+        List<String> names = new ArrayList<>();
+        for (File file : files) {
+            totalBytes += file.length();
+            names.add(file.getName());
+        }
+        return loadParts(files.size() + " files", names, totalBytes,
+                (part, partMonitor) -> load(files.get(part), mode, partMonitor), monitor);
+    }
+
+    // Runs the loader for every part concurrently and merges the results, in
+    // part order, into a snapshot named sourceName. totalBytes is the sum of
+    // the byte totals the parts report progress against.
+    static DatasetSnapshot loadParts(String sourceName, List<String> partNames, long totalBytes, PartLoader loader,
+                                     LoadMonitor monitor) throws IOException {
+        AtomicLong rows = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        int threads = Math.min(partNames.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "csv-file-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<DatasetSnapshot>> futures = new ArrayList<>();
+            for (int i = 0; i < partNames.size(); i++) {
+                // Turns this part's running totals into increments of the overall totals
+                LoadMonitor partMonitor = new LoadMonitor() {
+                    private long lastRows;
+                    private long lastBytes;
+
+                    @Override
+                    public synchronized void progress(long partRows, long partBytes, long partTotal) {
+                        monitor.progress(rows.addAndGet(partRows - lastRows),
+                                bytes.addAndGet(partBytes - lastBytes), totalBytes);
+                        lastRows = partRows;
+                        lastBytes = partBytes;
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return monitor.isCancelled();
+                    }
+                };
+                int part = i;
+                futures.add(executor.submit(() -> loader.load(part, partMonitor)));
+            }
+            List<DatasetSnapshot> parts = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    parts.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw new IOException(partNames.get(i) + ": " + cause.getMessage(), cause);
+                    }
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new IOException(partNames.get(i) + ": " + cause, cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Load interrupted");
+                }
+            }
+            return merge(sourceName, parts);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Combines per-file snapshots without modifying them. The merged snapshot
+    // keeps the parts without their tables, as the concatenated table holds the
+    // same rows and only the part statistics are read after the merge.
+    static DatasetSnapshot merge(String sourceName, List<DatasetSnapshot> parts) {
+        Map<String, ScoreAccumulator> stats = new HashMap<>();
+        List<StudentTable> tables = new ArrayList<>();
+        List<DatasetSnapshot> statsOnly = new ArrayList<>();
+        for (DatasetSnapshot part : parts) {
+            ScoreAccumulator.mergeInto(stats, part.getDepartmentStats());
+            if (part.getTable() != null) {
+                tables.add(part.getTable());
+            }
+            statsOnly.add(part.withoutTable());
+        }
+        StudentTable table = tables.size() == parts.size() ? StudentTable.concat(tables) : null;
+        return new DatasetSnapshot(sourceName, table, stats, statsOnly);
+    }
+
+    // Loads a CSV file on the calling thread into a columnar table of every row.
+    static DatasetSnapshot loadSequential(File file, LoadMonitor monitor) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return loadSequential(file.getName(), in, file.length(), monitor);
+        }
+    }
+
+    // Like loadSequential above, for a CSV read from in; progress is reported
+    // against totalBytes.
+    static DatasetSnapshot loadSequential(String name, InputStream in, long totalBytes, LoadMonitor monitor)
+            throws IOException {
+        LoadDiagnostics diagnostics = LoadDiagnostics.forLoad(name);
+        StudentTable table = parseStream(in, totalBytes, monitor, true, diagnostics,
+                selection -> new StudentTable.Builder(selection.slotOfColumn, selection.selectedColumns)).build();
+        return new DatasetSnapshot(name, table, table.departmentStats(), diagnostics);
+    }
+
+    // Loads a CSV file on the calling thread, folding each row straight into
+    // per-department accumulators so memory does not grow with the row count.
+    static DatasetSnapshot loadStreaming(File file, LoadMonitor monitor) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return loadStreaming(file.getName(), in, file.length(), monitor);
+        }
+    }
+
+    // Like loadStreaming above, for a CSV read from in.
+    static DatasetSnapshot loadStreaming(String name, InputStream in, long totalBytes, LoadMonitor monitor)
+            throws IOException {
+        Map<String, ScoreAccumulator> stats = new HashMap<>();
+        LoadDiagnostics diagnostics = LoadDiagnostics.forLoad(name);
+        parseStream(in, totalBytes, monitor, false, diagnostics, selection -> (record, department, finalScore) ->
+                stats.computeIfAbsent(department, k -> new ScoreAccumulator()).add(finalScore));
+        return new DatasetSnapshot(name, null, stats, diagnostics);
+    }
+
+    // Tokenizes the stream and hands every valid row to the sink made by the
+    // factory, which is returned; bad rows go to diagnostics. Only Department and
+    // Final_Score are read unless allColumns is set. ASCII-compatible input is
+    // scanned as raw bytes; other encodings (UTF-16) are decoded by the char tokenizer.
+    private static <S extends RowSink> S parseStream(InputStream source, long totalBytes, LoadMonitor monitor,
+                                                     boolean allColumns, LoadDiagnostics diagnostics,
+                                                     RowSinkFactory<S> factory) throws IOException {
+        // Look at the byte order mark, then put back whatever is not one
+        PushbackInputStream in = new PushbackInputStream(source, CsvEncoding.MARK_LENGTH);
+        byte[] head = new byte[CsvEncoding.MARK_LENGTH];
+        int headLength = 0;
+        while (headLength < head.length) {
+            int n = in.read(head, headLength, head.length - headLength);
+            if (n < 0) {
+                break;
+            }
+            headLength += n;
+        }
+        CsvEncoding encoding = CsvEncoding.of(head, headLength);
+        in.unread(head, encoding.bomLength, headLength - encoding.bomLength);
+        try {
+            if (encoding.isAsciiCompatible()) {
+                return parseBytes(in, encoding, totalBytes, monitor, allColumns, diagnostics, factory);
+            }
+            CountingInputStream counter = new CountingInputStream(in);
+            try (CsvRecordReader reader = new CsvRecordReader(
+                    new BufferedReader(new InputStreamReader(counter, encoding.charset)))) {
+                ColumnSelection selection = ColumnSelection.of(reader.readHeader(), allColumns);
+                // Only the selected columns are copied out of each record
+                reader.select(selection.selectedColumns);
+                int requiredFields = requiredFields(selection);
+                S sink = factory.create(selection);
+                PipelineMetrics.BatchTimer batches = new PipelineMetrics.BatchTimer(diagnostics.getSource());
+                long rows = 0;
+                while (reader.next()) {
+                    parseStudent(reader, requiredFields, sink, diagnostics);
+                    if (++rows % PROGRESS_INTERVAL == 0) {
+                        checkCancelled(monitor);
+                        monitor.progress(rows, counter.count, totalBytes);
+                        batches.batch(rows, counter.count);
+                    }
+                }
+                batches.batch(rows, counter.count);
+                monitor.progress(rows, totalBytes, totalBytes);
+                return sink;
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // error budget exceeded
+        }
+    }
+
+    // Reads the stream in blocks and scans records straight out of the bytes.
+    // A record cut off at the end of a block is moved to the front and completed
+    // by the next read; the block grows when a single record does not fit.
+    private static <S extends RowSink> S parseBytes(InputStream in, CsvEncoding encoding, long totalBytes,
+                                                    LoadMonitor monitor, boolean allColumns,
+                                                    LoadDiagnostics diagnostics, RowSinkFactory<S> factory)
+            throws IOException {
+        byte[] bytes = new byte[READ_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long base = encoding.bomLength; // stream offset of bytes[0]
+        int length = 0;
+        boolean endOfInput = false;
+
+        // Read until the header is complete
+        ByteCsvScanner scanner = new ByteCsvScanner(encoding.charset);
+        while (!endOfInput && !containsLineBreak(bytes, length)) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                buffer = ByteBuffer.wrap(bytes);
+            }
+            int n = in.read(bytes, length, bytes.length - length);
+            if (n < 0) {
+                endOfInput = true;
+            } else {
+                length += n;
+            }
+        }
+        scanner.reset(buffer, 0, length);
+        ColumnSelection selection = ColumnSelection.of(scanner.readHeader(), allColumns);
+        scanner.select(selection.selectedColumns);
+        int requiredFields = requiredFields(selection);
+        S sink = factory.create(selection);
+
+        PipelineMetrics.BatchTimer batches = new PipelineMetrics.BatchTimer(diagnostics.getSource());
+        long rows = 0;
+        int position = scanner.position();
+        while (true) {
+            scanner.reset(buffer, position, length);
+            while (scanner.next(endOfInput)) {
+                parseStudent(scanner, requiredFields, sink, diagnostics);
+                if (++rows % PROGRESS_INTERVAL == 0) {
+                    checkCancelled(monitor);
+                    monitor.progress(rows, base + scanner.position(), totalBytes);
+                    batches.batch(rows, base + scanner.position());
+                }
+            }
+            if (endOfInput) {
+                batches.batch(rows, base + length);
+                break;
+            }
+            // Keep the unfinished record and read more behind it
+            position = scanner.position();
+            int tail = length - position;
+            if (tail == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                buffer = ByteBuffer.wrap(bytes);
+            } else {
+                System.arraycopy(bytes, position, bytes, 0, tail);
+            }
+            base += position;
+            position = 0;
+            length = tail;
+            int n = in.read(bytes, length, bytes.length - length);
+            if (n < 0) {
+                endOfInput = true;
+            } else {
+                length += n;
+            }
+        }
+        monitor.progress(rows, totalBytes, totalBytes);
+        return sink;
+    }
+
+    private static int requiredFields(ColumnSelection selection) {
+        int[] columns = selection.selectedColumns;
+        return Math.max(columns[DEPARTMENT_SLOT], columns[FINAL_SCORE_SLOT]) + 1;
+    }
+
+    static boolean containsLineBreak(byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == '\n' || bytes[i] == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Locates the Department and Final_Score columns, in slot order.
+    static int[] findColumns(String[] headers) throws IOException {
+        int finalScoreIndex = -1;
+        int departmentIndex = -1;
+        for (int i = 0; i < headers.length; i++) {
+            String header = headers[i];
+            if (header.equals("Final_Score")) {
+                finalScoreIndex = i;
+            } else if (header.equals("Department")) {
+                departmentIndex = i;
+            }
+        }
+        if (finalScoreIndex == -1 || departmentIndex == -1) {
+            throw new IOException("CSV header missing 'Final_Score' or 'Department' columns.");
+        }
+        return new int[] {departmentIndex, finalScoreIndex};
+    }
+
+    static void checkCancelled(LoadMonitor monitor) {
+        if (monitor.isCancelled()) {
+            throw new CancellationException("Load cancelled");
+        }
+    }
+
+    // Validates the tokenizer's current record and passes it to the sink. Problems
+    // are counted in diagnostics, which throws UncheckedIOException past its budget.
+    static void parseStudent(CsvRecord record, int requiredFields, RowSink sink, LoadDiagnostics diagnostics) {
+        if (record.fieldCount() < requiredFields) {
+            diagnostics.record(LoadDiagnostics.Category.SHORT_ROW, record.lineNumber(),
+                    record.fieldCount() + " of " + requiredFields + " fields");
+            return;
+        }
+        String department = record.text(DEPARTMENT_SLOT);
+        double finalScore = 0.0;
+        if (!record.isBlank(FINAL_SCORE_SLOT)) {
+            try {
+                finalScore = record.number(FINAL_SCORE_SLOT);
+            } catch (NumberFormatException e) {
+                diagnostics.record(LoadDiagnostics.Category.INVALID_SCORE, record.lineNumber(),
+                        "Final_Score \"" + record.rawText(FINAL_SCORE_SLOT) + "\"");
+            }
+        }
+        sink.accept(record, department, finalScore);
+    }
+
+    // Counts bytes pulled from a stream so progress can be reported in bytes. The
+    // count may be read from another thread than the one reading the stream.
+    static final class CountingInputStream extends FilterInputStream {
+        volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package DepartmentFinalScoreChart;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Column-oriented, immutable store of the loaded rows. Categorical columns are
+// dictionary-encoded into int codes (-1 when missing), Final_Score is kept as
+// double[] so averages match the text exactly, and the other numeric columns
+// are float[] (NaN when missing or unparseable). Only columns present in the
+// source header are allocated.
+final class StudentTable {
+    private final int rowCount;
+    private final Map<Column, int[]> codes;
+    private final Map<Column, CategoryDictionary> dictionaries;
+    private final Map<Column, float[]> numbers;
+    private final double[] finalScores;
+    private BitmapIndex index;
+
+    StudentTable(int rowCount, Map<Column, int[]> codes, Map<Column, CategoryDictionary> dictionaries,
+                 Map<Column, float[]> numbers, double[] finalScores) {
+        this.rowCount = rowCount;
+        this.codes = codes;
+        this.dictionaries = dictionaries;
+        this.numbers = numbers;
+        this.finalScores = finalScores;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    // True when the column was present in the source file.
+    boolean has(Column column) {
+        return column == Column.FINAL_SCORE || codes.containsKey(column) || numbers.containsKey(column);
+    }
+
+    // Codes of a categorical column; only the first getRowCount() entries are used.
+    int[] codes(Column column) {
+        return codes.get(column);
+    }
+
+    CategoryDictionary dictionary(Column column) {
+        return dictionaries.get(column);
+    }
+
+    // Values of a numeric column other than Final_Score.
+    float[] floats(Column column) {
+        return numbers.get(column);
+    }
+
+    double[] finalScores() {
+        return finalScores;
+    }
+
+    // Value of any numeric column, NaN when missing.
+    double numeric(Column column, int row) {
+        return column == Column.FINAL_SCORE ? finalScores[row] : numbers.get(column)[row];
+    }
+
+    // Per-department statistics of Final_Score in one primitive pass over the columns.
+    Map<String, ScoreAccumulator> departmentStats() {
+        return departmentStats(null);
+    }
+
+    // Per-department statistics of Final_Score over the given rows (all rows when null).
+    // Departments without any of the rows are left out.
+    Map<String, ScoreAccumulator> departmentStats(RowBitmap rows) {
+        CategoryDictionary departments = dictionaries.get(Column.DEPARTMENT);
+        ScoreAccumulator[] byCode = new ScoreAccumulator[departments.size()];
+        for (int code = 0; code < byCode.length; code++) {
+            byCode[code] = new ScoreAccumulator();
+        }
+        int[] departmentCodes = codes.get(Column.DEPARTMENT);
+        double[] scores = finalScores;
+        if (rows == null) {
+            for (int row = 0; row < rowCount; row++) {
+                byCode[departmentCodes[row]].add(scores[row]);
+            }
+        } else {
+            int[] buffer = new int[1 << 16];
+            for (int c = 0; c < rows.containerCount(); c++) {
+                int n = rows.rows(c, buffer);
+                for (int i = 0; i < n; i++) {
+                    byCode[departmentCodes[buffer[i]]].add(scores[buffer[i]]);
+                }
+            }
+        }
+        Map<String, ScoreAccumulator> stats = new HashMap<>();
+        for (int code = 0; code < byCode.length; code++) {
+            if (rows == null || byCode[code].getCount() > 0) {
+                stats.put(departments.decode(code), byCode[code]);
+            }
+        }
+        return stats;
+    }
+
+    // Rough heap footprint of the column arrays, plus the bitmap indexes once
+    // built: each row sits in one bitmap per column, at about two bytes.
+    synchronized long estimatedBytes() {
+        long bytes = (long) finalScores.length * Double.BYTES;
+        for (int[] column : codes.values()) {
+            bytes += (long) column.length * Integer.BYTES;
+        }
+        for (float[] column : numbers.values()) {
+            bytes += (long) column.length * Float.BYTES;
+        }
+        if (index != null) {
+            bytes += 2L * rowCount * (codes.size() + numbers.size());
+        }
+        return bytes;
+    }
+
+    // Bitmap indexes of every column, built on first use (LoadTask builds them
+    // right after loading, off the FX thread).
+    synchronized BitmapIndex index() {
+        if (index == null) {
+            index = BitmapIndex.build(this);
+        }
+        return index;
+    }
+
+    // Concatenates tables loaded from separate files. Dictionaries are merged and
+    // each part's codes remapped; columns missing from a part are filled as missing.
+    static StudentTable concat(List<StudentTable> parts) {
+        int rowCount = 0;
+        EnumSet<Column> present = EnumSet.noneOf(Column.class);
+        for (StudentTable part : parts) {
+            rowCount += part.rowCount;
+            present.addAll(part.codes.keySet());
+            present.addAll(part.numbers.keySet());
+        }
+        Map<Column, int[]> codes = new EnumMap<>(Column.class);
+        Map<Column, CategoryDictionary> dictionaries = new EnumMap<>(Column.class);
+        Map<Column, float[]> numbers = new EnumMap<>(Column.class);
+        double[] finalScores = new double[rowCount];
+        for (Column column : present) {
+            if (column.isCategorical()) {
+                CategoryDictionary merged = new CategoryDictionary();
+                int[] target = new int[rowCount];
+                int offset = 0;
+                for (StudentTable part : parts) {
+                    int[] source = part.codes.get(column);
+                    if (source == null) {
+                        Arrays.fill(target, offset, offset + part.rowCount, -1);
+                    } else {
+                        CategoryDictionary dictionary = part.dictionaries.get(column);
+                        int[] remap = new int[dictionary.size()];
+                        for (int code = 0; code < remap.length; code++) {
+                            remap[code] = merged.encode(dictionary.decode(code));
+                        }
+                        for (int row = 0; row < part.rowCount; row++) {
+                            int code = source[row];
+                            target[offset + row] = code < 0 ? -1 : remap[code];
+                        }
+                    }
+                    offset += part.rowCount;
+                }
+                codes.put(column, target);
+                dictionaries.put(column, merged);
+            } else {
+                float[] target = new float[rowCount];
+                int offset = 0;
+                for (StudentTable part : parts) {
+                    float[] source = part.numbers.get(column);
+                    if (source == null) {
+                        Arrays.fill(target, offset, offset + part.rowCount, Float.NaN);
+                    } else {
+                        System.arraycopy(source, 0, target, offset, part.rowCount);
+                    }
+                    offset += part.rowCount;
+                }
+                numbers.put(column, target);
+            }
+        }
+        int offset = 0;
+        for (StudentTable part : parts) {
+            System.arraycopy(part.finalScores, 0, finalScores, offset, part.rowCount);
+            offset += part.rowCount;
+        }
+        return new StudentTable(rowCount, codes, dictionaries, numbers, finalScores);
+    }
+
+    // Appends rows one at a time, growing the column arrays geometrically.
+    static final class Builder implements StudentDataProcessor.RowSink {
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private final int[] sourceColumnOfSlot;
+        private final Map<Column, int[]> codes = new EnumMap<>(Column.class);
+        private final Map<Column, CategoryDictionary> dictionaries = new EnumMap<>(Column.class);
+        private final Map<Column, float[]> numbers = new EnumMap<>(Column.class);
+        private double[] finalScores = new double[INITIAL_CAPACITY];
+        private int rowCount;
+
+        // Per-slot views of the maps above, so add() does no map lookups
+        private final Column[] categorical;
+        private final int[] categoricalSlots;
+        private final Column[] numeric;
+        private final int[] numericSlots;
+        private final int[][] codeArrays;
+        private final CategoryDictionary[] dictionaryArray;
+        private final float[][] numberArrays;
+
+        // slotOfColumn[column.ordinal()] is the tokenizer slot of each column, or -1 when
+        // absent; sourceColumnOfSlot is the CSV column index read into each slot.
+        Builder(int[] slotOfColumn, int[] sourceColumnOfSlot) {
+            this.sourceColumnOfSlot = sourceColumnOfSlot;
+            int categoricalCount = 0;
+            int numericCount = 0;
+            for (Column column : Column.values()) {
+                if (slotOfColumn[column.ordinal()] < 0 || column == Column.FINAL_SCORE) {
+                    continue;
+                }
+                if (column.isCategorical()) {
+                    categoricalCount++;
+                } else {
+                    numericCount++;
+                }
+            }
+            categorical = new Column[categoricalCount];
+            categoricalSlots = new int[categoricalCount];
+            numeric = new Column[numericCount];
+            numericSlots = new int[numericCount];
+            codeArrays = new int[categoricalCount][];
+            dictionaryArray = new CategoryDictionary[categoricalCount];
+            numberArrays = new float[numericCount][];
+            int c = 0;
+            int n = 0;
+            for (Column column : Column.values()) {
+                int slot = slotOfColumn[column.ordinal()];
+                if (slot < 0 || column == Column.FINAL_SCORE) {
+                    continue;
+                }
+                if (column.isCategorical()) {
+                    categorical[c] = column;
+                    categoricalSlots[c] = slot;
+                    codeArrays[c] = new int[INITIAL_CAPACITY];
+                    dictionaryArray[c] = new CategoryDictionary();
+                    c++;
+                } else {
+                    numeric[n] = column;
+                    numericSlots[n] = slot;
+                    numberArrays[n] = new float[INITIAL_CAPACITY];
+                    n++;
+                }
+            }
+        }
+
+        @Override
+        public void accept(CsvRecord record, String department, double finalScore) {
+            if (rowCount == finalScores.length) {
+                grow();
+            }
+            int row = rowCount++;
+            finalScores[row] = finalScore;
+            int fieldCount = record.fieldCount();
+            for (int i = 0; i < categorical.length; i++) {
+                int code;
+                if (categorical[i] == Column.DEPARTMENT) {
+                    code = dictionaryArray[i].encode(department);
+                } else {
+                    int slot = categoricalSlots[i];
+                    boolean missing = sourceColumnOfSlot[slot] >= fieldCount || record.isBlank(slot);
+                    code = missing ? -1 : dictionaryArray[i].encode(record.text(slot));
+                }
+                codeArrays[i][row] = code;
+            }
+            for (int i = 0; i < numeric.length; i++) {
+                int slot = numericSlots[i];
+                float value = Float.NaN;
+                if (sourceColumnOfSlot[slot] < fieldCount && !record.isBlank(slot)) {
+                    try {
+                        value = (float) record.number(slot);
+                    } catch (NumberFormatException e) {
+                        // left as NaN; only Final_Score errors are reported
+                    }
+                }
+                numberArrays[i][row] = value;
+            }
+        }
+
+        private void grow() {
+            int capacity = finalScores.length + (finalScores.length >> 1);
+            finalScores = Arrays.copyOf(finalScores, capacity);
+            for (int i = 0; i < codeArrays.length; i++) {
+                codeArrays[i] = Arrays.copyOf(codeArrays[i], capacity);
+            }
+            for (int i = 0; i < numberArrays.length; i++) {
+                numberArrays[i] = Arrays.copyOf(numberArrays[i], capacity);
+            }
+        }
+
+        StudentTable build() {
+            for (int i = 0; i < categorical.length; i++) {
+                codes.put(categorical[i], codeArrays[i]);
+                dictionaries.put(categorical[i], dictionaryArray[i]);
+            }
+            for (int i = 0; i < numeric.length; i++) {
+                numbers.put(numeric[i], numberArrays[i]);
+            }
+            if (!dictionaries.containsKey(Column.DEPARTMENT)) {
+                throw new IllegalStateException("Department column was not selected");
+            }
+            return new StudentTable(rowCount, codes, dictionaries, numbers, finalScores);
+        }
+    }
+}